@@ -12,6 +12,7 @@ CREATE TABLE deal (
     to_currency_id INTEGER NOT NULL,               -- Currency code for the currency being bought (foreign key)
     deal_timestamp TIMESTAMP NOT NULL,               -- Timestamp of when the deal was made
     deal_amount NUMERIC(18, 2) NOT NULL,             -- Deal amount in the "from" currency (with 2 decimal places)
+    usd_notional NUMERIC(20, 2),                     -- Deal amount converted to USD at ingest (NULL if no rate was known)
     
     CONSTRAINT fk_from_currency
         FOREIGN KEY (from_currency_id) 
@@ -51,3 +52,38 @@ VALUES
     ('LYD', 'Libyan Dinar', 'ل.د'),
     ('IQD', 'Iraqi Dinar', 'ع.د'),
     ('JOD', 'Jordanian Dinar', 'د.ا');
+
+
+-- FX rates: 1 unit of base_currency = rate units of quote_currency
+CREATE TABLE fx_rate (
+    fx_rate_id SERIAL PRIMARY KEY,
+    base_currency VARCHAR(3) NOT NULL,
+    quote_currency VARCHAR(3) NOT NULL,
+    rate NUMERIC(24, 10) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uq_fx_rate_pair UNIQUE (base_currency, quote_currency)
+);
+
+-- insert values into fx rates table (market quoting conventions; missing pairs are derived through USD or EUR)
+INSERT INTO fx_rate (base_currency, quote_currency, rate)
+VALUES
+    ('EUR', 'USD', 1.0850000000),
+    ('GBP', 'USD', 1.2700000000),
+    ('USD', 'JPY', 149.5000000000),
+    ('AUD', 'USD', 0.6600000000),
+    ('USD', 'CAD', 1.3600000000),
+    ('USD', 'CHF', 0.8800000000),
+    ('USD', 'CNY', 7.2500000000),
+    ('EUR', 'SEK', 11.4500000000),
+    ('NZD', 'USD', 0.6100000000),
+    ('USD', 'AED', 3.6725000000),
+    ('USD', 'SAR', 3.7500000000),
+    ('USD', 'EGP', 48.5000000000),
+    ('USD', 'QAR', 3.6400000000),
+    ('KWD', 'USD', 3.2500000000),
+    ('OMR', 'USD', 2.6000000000),
+    ('BHD', 'USD', 2.6500000000),
+    ('USD', 'LYD', 4.8000000000),
+    ('USD', 'IQD', 1310.0000000000),
+    ('USD', 'JOD', 0.7090000000);
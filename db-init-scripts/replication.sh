@@ -0,0 +1,4 @@
+#!/bin/bash
+# Allows streaming replication connections, used by the read replica of docker-compose.replica.yaml.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
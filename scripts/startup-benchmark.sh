@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Measures the time from starting the application to its first successful addDeal.
+#
+# Usage: scripts/startup-benchmark.sh [runs] -- <command that starts the application>
+#   scripts/startup-benchmark.sh 5 -- java -jar target/fxdeals-0.0.1-SNAPSHOT.jar
+#   scripts/startup-benchmark.sh 5 -- java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+#       -Dspring.profiles.active=fast-start -jar extracted/fxdeals.jar
+#
+# The database must be up. Every run posts a new deal until one is accepted, then stops the application.
+# Environment: URL (default http://localhost:8080/fxdeals/api/deals/addDeal), TIMEOUT_S (default 120).
+
+set -euo pipefail
+
+runs=3
+if [[ $# -gt 0 && "$1" != "--" ]]; then
+	runs=$1
+	shift
+fi
+if [[ $# -lt 2 || "$1" != "--" ]]; then
+	echo "Usage: $0 [runs] -- <command that starts the application>" >&2
+	exit 2
+fi
+shift
+
+url=${URL:-http://localhost:8080/fxdeals/api/deals/addDeal}
+timeout_s=${TIMEOUT_S:-120}
+now_ms() { date +%s%3N; }
+
+results=()
+for ((run = 1; run <= runs; run++)); do
+	deal_id="startup-benchmark-$(date +%s%N)"
+	body="{\"dealUniqueId\":\"$deal_id\",\"fromCurrency\":{\"currencyCode\":\"USD\"},\"toCurrency\":{\"currencyCode\":\"EUR\"},\"dealTimestamp\":\"2024-08-20T12:30:00\",\"dealAmount\":1000.00}"
+
+	started=$(now_ms)
+	"$@" > "startup-benchmark-$run.log" 2>&1 &
+	pid=$!
+	elapsed=""
+	while kill -0 "$pid" 2> /dev/null; do
+		status=$(curl -s -o /dev/null -w '%{http_code}' -H 'Content-Type: application/json' -d "$body" "$url" || true)
+		if [[ "$status" == "200" ]]; then
+			elapsed=$(($(now_ms) - started))
+			break
+		fi
+		if (($(now_ms) - started > timeout_s * 1000)); then
+			break
+		fi
+		sleep 0.02
+	done
+	kill "$pid" 2> /dev/null || true
+	wait "$pid" 2> /dev/null || true
+
+	if [[ -z "$elapsed" ]]; then
+		echo "run $run: no successful addDeal, see startup-benchmark-$run.log" >&2
+		exit 1
+	fi
+	echo "run $run: first addDeal after $elapsed ms"
+	results+=("$elapsed")
+done
+
+sorted=($(printf '%s\n' "${results[@]}" | sort -n))
+sum=0
+for value in "${sorted[@]}"; do
+	sum=$((sum + value))
+done
+echo "runs=$runs min=${sorted[0]}ms median=${sorted[$((runs / 2))]}ms avg=$((sum / runs))ms"
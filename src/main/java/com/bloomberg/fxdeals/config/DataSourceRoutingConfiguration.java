@@ -0,0 +1,115 @@
+package com.bloomberg.fxdeals.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Replaces the single data source by a primary pool ({@code spring.datasource.*}, with the pool settings of
+ * {@code spring.datasource.hikari.*}) and one pool per replica URL in
+ * {@code fxdeals.datasource.replica-urls}, routed by {@link ReadWriteRoutingDataSource}. Every pool reports its own
+ * HikariCP metrics under its pool name, and every replica its lag and health.
+ */
+@Configuration
+@ConditionalOnProperty(name = "fxdeals.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfiguration {
+
+	@Value("${fxdeals.datasource.replica-urls:}")
+	private String[] replicaUrls;
+
+	@Value("${fxdeals.datasource.replica-username:}")
+	private String replicaUsername;
+
+	@Value("${fxdeals.datasource.replica-password:}")
+	private String replicaPassword;
+
+	@Value("${fxdeals.datasource.replica-pool-size:10}")
+	private int replicaPoolSize;
+
+	@Value("${fxdeals.datasource.replica-connection-timeout-ms:2000}")
+	private long replicaConnectionTimeoutMs;
+
+	@Value("${fxdeals.datasource.max-replication-lag-ms:5000}")
+	private long maxReplicationLagMs;
+
+	@Value("${fxdeals.datasource.replica-check-interval-ms:5000}")
+	private long replicaCheckIntervalMs;
+
+	@Bean(destroyMethod = "close")
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties,
+			ObjectProvider<MeterRegistry> meterRegistryProvider) {
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		primary.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+		trackMetrics(primary, meterRegistryProvider.getIfAvailable());
+		return primary;
+	}
+
+	@Bean(destroyMethod = "close")
+	public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primary, DataSourceProperties properties,
+			ObjectProvider<MeterRegistry> meterRegistryProvider) {
+		MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		for (String url : replicaUrls) {
+			if (url.isBlank()) {
+				continue;
+			}
+			HikariDataSource replica = new HikariDataSource();
+			replica.setPoolName("replica-" + (replicas.size() + 1));
+			replica.setJdbcUrl(url.trim());
+			replica.setUsername(replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername);
+			replica.setPassword(replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword);
+			replica.setMaximumPoolSize(replicaPoolSize);
+			replica.setConnectionTimeout(replicaConnectionTimeoutMs);
+			replica.setReadOnly(true);
+			// A replica that is down at startup must not keep the application from starting.
+			replica.setInitializationFailTimeout(-1);
+			trackMetrics(replica, meterRegistry);
+			replicas.put(replica.getPoolName(), replica);
+		}
+
+		ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, replicas,
+				maxReplicationLagMs);
+		if (meterRegistry != null) {
+			for (String name : routingDataSource.getReplicaNames()) {
+				Gauge.builder("fxdeals.datasource.replica.lag", routingDataSource, r -> r.getReplicationLagMs(name))
+						.tag("replica", name).baseUnit("milliseconds")
+						.description("Replication lag as of the last check, -1 if the replica is unreachable")
+						.register(meterRegistry);
+			}
+		}
+		routingDataSource.startReplicaChecks(replicaCheckIntervalMs);
+		return routingDataSource;
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+	private static void trackMetrics(HikariDataSource dataSource, MeterRegistry meterRegistry) {
+		if (meterRegistry != null) {
+			dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+		}
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.bloomberg.fxdeals.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections between the primary database and its read replicas. Read-only transactions are balanced round
+ * robin over the replicas that are reachable and whose replication lag is within the tolerance; everything else, and
+ * any read-only transaction while no replica qualifies, goes to the primary. Code that must read its own writes runs
+ * inside {@link #onPrimary(Supplier)}.
+ * <p>
+ * The lookup happens when the connection is acquired, so this data source must be wrapped in a
+ * {@code LazyConnectionDataSourceProxy} for the read-only flag of the transaction to be known at that point.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+	public static final String PRIMARY = "primary";
+
+	/**
+	 * Zero while caught up, otherwise the age of the last replayed transaction. Comparing the received and replayed WAL
+	 * positions keeps an idle primary from looking like replication lag.
+	 */
+	private static final String LAG_QUERY = "select case when not pg_is_in_recovery() "
+			+ "or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+			+ "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0) end";
+
+	private static final ThreadLocal<Integer> primaryScopes = new ThreadLocal<>();
+
+	private final List<Replica> replicas = new ArrayList<>();
+	private final long maxReplicationLagMs;
+	private final AtomicInteger nextReplica = new AtomicInteger();
+	private ScheduledExecutorService checker;
+
+	/**
+	 * @param primary             The primary database.
+	 * @param replicas            The read replicas by name.
+	 * @param maxReplicationLagMs The replication lag above which a replica no longer serves reads.
+	 */
+	public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxReplicationLagMs) {
+		this.maxReplicationLagMs = maxReplicationLagMs;
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		replicas.forEach((name, dataSource) -> {
+			targets.put(name, dataSource);
+			this.replicas.add(new Replica(name, dataSource));
+		});
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+	}
+
+	/**
+	 * Runs work whose reads must see the writes made just before it, such as lookups of rows the ingest paths may
+	 * have created moments ago, on the primary even inside read-only transactions.
+	 *
+	 * @param work The work to run.
+	 * @return The result of the work.
+	 */
+	public static <T> T onPrimary(Supplier<T> work) {
+		Integer depth = primaryScopes.get();
+		primaryScopes.set(depth == null ? 1 : depth + 1);
+		try {
+			return work.get();
+		} finally {
+			if (depth == null) {
+				primaryScopes.remove();
+			} else {
+				primaryScopes.set(depth);
+			}
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (primaryScopes.get() != null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return PRIMARY;
+		}
+		Replica replica = nextUsableReplica();
+		return replica != null ? replica.name : PRIMARY;
+	}
+
+	private Replica nextUsableReplica() {
+		int size = replicas.size();
+		if (size == 0) {
+			return null;
+		}
+		int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+		for (int i = 0; i < size; i++) {
+			Replica replica = replicas.get((start + i) % size);
+			if (replica.healthy && replica.lagMs <= maxReplicationLagMs) {
+				return replica;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Starts checking the reachability and replication lag of the replicas. Until a replica passed its first check,
+	 * its reads go to the primary.
+	 *
+	 * @param intervalMs The time between checks.
+	 */
+	public void startReplicaChecks(long intervalMs) {
+		if (replicas.isEmpty()) {
+			return;
+		}
+		checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-lag-check");
+			thread.setDaemon(true);
+			return thread;
+		});
+		checker.scheduleWithFixedDelay(this::checkReplicas, 0, intervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	public void checkReplicas() {
+		for (Replica replica : replicas) {
+			boolean wasUsable = replica.healthy && replica.lagMs <= maxReplicationLagMs;
+			try (Connection connection = replica.dataSource.getConnection();
+					Statement statement = connection.createStatement();
+					ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+				resultSet.next();
+				replica.lagMs = (long) resultSet.getDouble(1);
+				replica.healthy = true;
+			} catch (Exception e) {
+				replica.healthy = false;
+				logger.debug("Replica {} check failed", replica.name, e);
+			}
+			boolean usable = replica.healthy && replica.lagMs <= maxReplicationLagMs;
+			if (usable != wasUsable) {
+				logger.info("Replica {} {} reads (healthy={}, lag={} ms)", replica.name,
+						usable ? "now serves" : "no longer serves", replica.healthy, replica.lagMs);
+			}
+		}
+	}
+
+	/**
+	 * Stops the replica checks and closes the replica pools. The primary is left to its owner.
+	 */
+	public void close() throws Exception {
+		if (checker != null) {
+			checker.shutdownNow();
+		}
+		for (Replica replica : replicas) {
+			if (replica.dataSource instanceof AutoCloseable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+	/**
+	 * The replication lag of a replica as of its last check, in milliseconds, or -1 if it is not reachable.
+	 */
+	public long getReplicationLagMs(String name) {
+		for (Replica replica : replicas) {
+			if (replica.name.equals(name)) {
+				return replica.healthy ? replica.lagMs : -1;
+			}
+		}
+		throw new IllegalArgumentException("Unknown replica: " + name);
+	}
+
+	public List<String> getReplicaNames() {
+		return replicas.stream().map(replica -> replica.name).toList();
+	}
+
+	private static final class Replica {
+		private final String name;
+		private final DataSource dataSource;
+		private volatile boolean healthy;
+		private volatile long lagMs;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+	}
+
+}
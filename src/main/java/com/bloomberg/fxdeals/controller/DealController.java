@@ -1,27 +1,61 @@
 package com.bloomberg.fxdeals.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.sql.Timestamp;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.service.DealBatchImportService;
+import com.bloomberg.fxdeals.service.DealColumnStore;
+import com.bloomberg.fxdeals.service.DealColumnStore.DealAggregate;
+import com.bloomberg.fxdeals.service.DealDryRunService;
+import com.bloomberg.fxdeals.service.DealDryRunService.DryRunResult;
+import com.bloomberg.fxdeals.service.DealRecordValidator;
 import com.bloomberg.fxdeals.service.DealService;
 import com.bloomberg.fxdeals.service.DealService.SaveResult;
+import com.bloomberg.fxdeals.service.DealStreamService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/deals")
 public class DealController {
 
+	private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
 	@Autowired
 	private DealService dealService;
 
+	@Autowired
+	private DealStreamService dealStreamService;
+
+	@Autowired
+	private DealDryRunService dealDryRunService;
+
+	@Autowired
+	private DealBatchImportService dealBatchImportService;
+
+	@Autowired
+	private DealColumnStore dealColumnStore;
+
+	@Value("${fxdeals.stream.timeout-ms:3600000}")
+	private long streamTimeoutMs;
+
 	@PostMapping("/addDeal")
 	public ResponseEntity<String> addDeal(@RequestBody Deal deal) {
 		dealService.saveDeal(deal);
@@ -29,9 +63,14 @@ public class DealController {
 	}
 
 	@PostMapping("/addBatch")
-	public ResponseEntity<String> addBatchDeals(@RequestParam("file") MultipartFile file) {
+	public ResponseEntity<String> addBatchDeals(@RequestParam("file") MultipartFile file,
+			@RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun,
+			@RequestParam(value = "debug", defaultValue = "false") boolean debug) {
 		try {
-			SaveResult result = dealService.saveDealsFromCsv(new InputStreamReader(file.getInputStream()));
+			if (dryRun) {
+				return dryRunBatchDeals(file, debug);
+			}
+			SaveResult result = dealBatchImportService.importCsv(new InputStreamReader(file.getInputStream()), debug);
 			String message = String.format("Batch deals processing complete: %d out of %d deals saved successfully.",
 					result.getSuccessfulDeals(), result.getTotalDeals());
 
@@ -46,4 +85,50 @@ public class DealController {
 			return ResponseEntity.status(500).body("Error processing batch deals: " + e.getMessage());
 		}
 	}
+
+	private ResponseEntity<String> dryRunBatchDeals(MultipartFile file, boolean debug) throws IOException {
+		DryRunResult result = dealDryRunService.validateDealsFromCsv(new InputStreamReader(file.getInputStream()),
+				debug);
+		StringBuilder message = new StringBuilder(String.format(
+				"Batch deals dry run complete: %d out of %d deals would be saved.", result.getSuccessfulDeals(),
+				result.getTotalDeals()));
+
+		if (!result.getRejectionCounts().isEmpty()) {
+			message.append("\nRejections by reason:");
+			result.getRejectionCounts().forEach((reason, count) -> message.append("\n").append(reason).append(": ")
+					.append(count));
+		}
+		if (!result.getErrors().isEmpty()) {
+			message.append("\nErrors:\n").append(String.join("\n", result.getErrors()));
+		}
+		return ResponseEntity.ok(message.toString());
+	}
+
+	/**
+	 * Streams the results back while the upload is still being read. The request runs asynchronously with its own
+	 * timeout, {@code fxdeals.stream.timeout-ms}, so long uploads do not need a longer timeout for every endpoint.
+	 */
+	@PostMapping(value = "/addStream", consumes = { APPLICATION_NDJSON, MediaType.APPLICATION_JSON_VALUE })
+	public WebAsyncTask<Void> addDealStream(HttpServletRequest request, HttpServletResponse response,
+			@RequestParam(value = "debug", defaultValue = "false") boolean debug) throws IOException {
+		InputStream body = request.getInputStream();
+		response.setContentType(APPLICATION_NDJSON);
+		return new WebAsyncTask<>(streamTimeoutMs, () -> {
+			dealStreamService.processStream(body, response.getOutputStream(), debug);
+			return null;
+		});
+	}
+
+	@GetMapping("/aggregate")
+	public ResponseEntity<?> aggregateDeals(@RequestParam("from") String from, @RequestParam("to") String to,
+			@RequestParam(value = "fromCurrency", required = false) String fromCurrency,
+			@RequestParam(value = "toCurrency", required = false) String toCurrency) {
+		Timestamp fromTimestamp = DealRecordValidator.parseTimestamp(from);
+		Timestamp toTimestamp = DealRecordValidator.parseTimestamp(to);
+		if (fromTimestamp == null || toTimestamp == null) {
+			return ResponseEntity.badRequest().body("Invalid time window: " + from + " - " + to);
+		}
+		DealAggregate aggregate = dealColumnStore.aggregate(fromTimestamp, toTimestamp, fromCurrency, toCurrency);
+		return ResponseEntity.ok(aggregate);
+	}
 }
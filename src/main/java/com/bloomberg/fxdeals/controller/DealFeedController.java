@@ -0,0 +1,106 @@
+package com.bloomberg.fxdeals.controller;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.bloomberg.fxdeals.service.DealFeed;
+import com.bloomberg.fxdeals.service.DealFeedEvent;
+import com.bloomberg.fxdeals.service.DealFeedSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+@RestController
+@RequestMapping("/api/deals")
+public class DealFeedController {
+
+	@Autowired
+	private DealFeed dealFeed;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Streams committed deals as Server-Sent Events named {@code deal}, with the feed's event ID. Browsers resume
+	 * after a reconnect through the {@code Last-Event-ID} header; other clients can pass {@code after}.
+	 */
+	@GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> feed(
+			@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+			@RequestParam(value = "after", required = false) String after) {
+		SseEmitter emitter = new SseEmitter(0L);
+		DealFeed.Subscription subscription;
+		try {
+			subscription = dealFeed.subscribe(lastEventId != null ? lastEventId : after,
+					new SseDealFeedSink(dealFeed, objectMapper, emitter));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		} catch (IllegalStateException e) {
+			return ResponseEntity.status(503).build();
+		}
+		emitter.onCompletion(() -> subscription.close(null));
+		emitter.onTimeout(() -> subscription.close(null));
+		emitter.onError(e -> subscription.close(null));
+		return ResponseEntity.ok(emitter);
+	}
+
+	private static class SseDealFeedSink implements DealFeedSink {
+
+		private final DealFeed dealFeed;
+		private final ObjectMapper objectMapper;
+		private final SseEmitter emitter;
+
+		SseDealFeedSink(DealFeed dealFeed, ObjectMapper objectMapper, SseEmitter emitter) {
+			this.dealFeed = dealFeed;
+			this.objectMapper = objectMapper;
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void send(List<DealFeedEvent> events) throws IOException {
+			Set<DataWithMediaType> data = new LinkedHashSet<>();
+			for (DealFeedEvent event : events) {
+				data.addAll(SseEmitter.event().id(dealFeed.eventId(event.getSequence())).name("deal")
+						.data(event.getJson()).build());
+			}
+			emitter.send(data);
+		}
+
+		@Override
+		public void gap(long dropped, long nextSequence) throws IOException {
+			ObjectNode node = objectMapper.createObjectNode();
+			node.put("dropped", dropped >= 0 ? Long.valueOf(dropped) : null);
+			node.put("nextEventId", dealFeed.eventId(nextSequence));
+			emitter.send(SseEmitter.event().name("gap").data(objectMapper.writeValueAsString(node)));
+		}
+
+		@Override
+		public void heartbeat() throws IOException {
+			emitter.send(SseEmitter.event().comment("heartbeat"));
+		}
+
+		@Override
+		public void close(String reason) {
+			try {
+				if (reason != null) {
+					emitter.send(SseEmitter.event().name("closed").data(reason));
+				}
+				emitter.complete();
+			} catch (Exception e) {
+				// The connection is already gone.
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.bloomberg.fxdeals.dto;
+
+/**
+ * Lean, unvalidated representation of an incoming deal. Unlike the {@code Deal} entity it carries the raw field
+ * values only (currency codes instead of {@code Currency} entities, timestamp and amount as text), so that parsing
+ * never fails on a bad value and validation can report exactly which field was wrong.
+ */
+public class DealRecord {
+
+	private String dealUniqueId;
+	private String fromCurrencyCode;
+	private String toCurrencyCode;
+	private String dealTimestamp;
+	private String dealAmount;
+
+	public DealRecord() {
+	}
+
+	public DealRecord(String dealUniqueId, String fromCurrencyCode, String toCurrencyCode, String dealTimestamp,
+			String dealAmount) {
+		this.dealUniqueId = dealUniqueId;
+		this.fromCurrencyCode = fromCurrencyCode;
+		this.toCurrencyCode = toCurrencyCode;
+		this.dealTimestamp = dealTimestamp;
+		this.dealAmount = dealAmount;
+	}
+
+	/**
+	 * Builds a record from a CSV row laid out as: unique ID, from currency, to currency, timestamp, amount.
+	 *
+	 * @param values The values from a single row in the CSV file.
+	 * @return The record, or null if the row does not have enough fields.
+	 */
+	public static DealRecord fromCsvRow(String[] values) {
+		if (values == null || values.length < 5) {
+			return null;
+		}
+		return new DealRecord(values[0], values[1], values[2], values[3], values[4]);
+	}
+
+	public String getDealUniqueId() {
+		return dealUniqueId;
+	}
+
+	public void setDealUniqueId(String dealUniqueId) {
+		this.dealUniqueId = dealUniqueId;
+	}
+
+	public String getFromCurrencyCode() {
+		return fromCurrencyCode;
+	}
+
+	public void setFromCurrencyCode(String fromCurrencyCode) {
+		this.fromCurrencyCode = fromCurrencyCode;
+	}
+
+	public String getToCurrencyCode() {
+		return toCurrencyCode;
+	}
+
+	public void setToCurrencyCode(String toCurrencyCode) {
+		this.toCurrencyCode = toCurrencyCode;
+	}
+
+	public String getDealTimestamp() {
+		return dealTimestamp;
+	}
+
+	public void setDealTimestamp(String dealTimestamp) {
+		this.dealTimestamp = dealTimestamp;
+	}
+
+	public String getDealAmount() {
+		return dealAmount;
+	}
+
+	public void setDealAmount(String dealAmount) {
+		this.dealAmount = dealAmount;
+	}
+
+}
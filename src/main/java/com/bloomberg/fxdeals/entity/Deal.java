@@ -50,6 +50,12 @@ public class Deal {
 	@Column(name = "deal_amount")
 	private BigDecimal dealAmount;
 
+	/**
+	 * The deal amount converted to USD with the rate snapshot current at ingest, or null if no rate was known.
+	 */
+	@Column(name = "usd_notional")
+	private BigDecimal usdNotional;
+
 	public Long getDealId() {
 		return dealId;
 	}
@@ -98,4 +104,12 @@ public class Deal {
 		this.dealAmount = dealAmount;
 	}
 
+	public BigDecimal getUsdNotional() {
+		return usdNotional;
+	}
+
+	public void setUsdNotional(BigDecimal usdNotional) {
+		this.usdNotional = usdNotional;
+	}
+
 }
@@ -0,0 +1,74 @@
+package com.bloomberg.fxdeals.entity;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A quoted FX rate: one unit of the base currency is worth {@code rate} units of the quote currency.
+ */
+@Entity
+@Table(name = "fx_rate")
+
+public class FxRate {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "fx_rate_id")
+	private Long id;
+
+	@Column(name = "base_currency", nullable = false)
+	private String baseCurrency;
+
+	@Column(name = "quote_currency", nullable = false)
+	private String quoteCurrency;
+
+	@Column(name = "rate", nullable = false)
+	private BigDecimal rate;
+
+	@Column(name = "updated_at", insertable = false, updatable = false)
+	private Timestamp updatedAt;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getBaseCurrency() {
+		return baseCurrency;
+	}
+
+	public void setBaseCurrency(String baseCurrency) {
+		this.baseCurrency = baseCurrency;
+	}
+
+	public String getQuoteCurrency() {
+		return quoteCurrency;
+	}
+
+	public void setQuoteCurrency(String quoteCurrency) {
+		this.quoteCurrency = quoteCurrency;
+	}
+
+	public BigDecimal getRate() {
+		return rate;
+	}
+
+	public void setRate(BigDecimal rate) {
+		this.rate = rate;
+	}
+
+	public Timestamp getUpdatedAt() {
+		return updatedAt;
+	}
+
+}
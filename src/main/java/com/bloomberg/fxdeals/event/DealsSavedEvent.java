@@ -0,0 +1,23 @@
+package com.bloomberg.fxdeals.event;
+
+import java.util.List;
+
+import com.bloomberg.fxdeals.entity.Deal;
+
+/**
+ * Published by {@code DealService} whenever deals are saved. Listeners that must only see committed deals should
+ * use {@code @TransactionalEventListener}, which delivers the event after the surrounding transaction commits.
+ */
+public class DealsSavedEvent {
+
+	private final List<Deal> deals;
+
+	public DealsSavedEvent(List<Deal> deals) {
+		this.deals = deals;
+	}
+
+	public List<Deal> getDeals() {
+		return deals;
+	}
+
+}
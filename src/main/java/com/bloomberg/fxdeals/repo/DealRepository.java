@@ -1,12 +1,36 @@
 package com.bloomberg.fxdeals.repo;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.bloomberg.fxdeals.entity.Deal;
 
+import jakarta.persistence.QueryHint;
+
 public interface DealRepository extends JpaRepository<Deal, Long> {
 
 	Optional<Deal> findByDealUniqueId(String dealUniqueId);
+
+	@Transactional(readOnly = true)
+	@Query("select d.dealUniqueId from Deal d where d.dealUniqueId in :dealUniqueIds")
+	List<String> findExistingDealUniqueIds(@Param("dealUniqueIds") Collection<String> dealUniqueIds);
+
+	/**
+	 * Streams the columns of the deals made since the given time as rows of deal ID, from currency code, to currency
+	 * code, timestamp, amount and USD notional. The stream must be consumed inside a transaction and closed afterwards.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+	@Query("select d.dealId, f.currencyCode, t.currencyCode, d.dealTimestamp, d.dealAmount, d.usdNotional from Deal d "
+			+ "join d.fromCurrency f join d.toCurrency t where d.dealTimestamp >= :since")
+	Stream<Object[]> streamDealColumns(@Param("since") Timestamp since);
 }
@@ -0,0 +1,9 @@
+package com.bloomberg.fxdeals.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.bloomberg.fxdeals.entity.FxRate;
+
+public interface FxRateRepository extends JpaRepository<FxRate, Long> {
+
+}
@@ -0,0 +1,133 @@
+package com.bloomberg.fxdeals.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Decides the batch size and the number of concurrent writers of the batch import path from the commit latency and
+ * error rate of recent flushes, using additive-increase / multiplicative-decrease within the configured bounds.
+ * <p>
+ * A flush is congested when it took longer than the target latency or when more than the tolerated fraction of its
+ * deals failed to save. Every uncongested flush grows the batch size by a fixed step; once the batch size is at its
+ * maximum, one more writer is added per round of uncongested flushes. A congested flush shrinks both by the decrease
+ * factor, after which further decreases wait for one round of flushes so that flushes already in flight do not
+ * shrink them again.
+ */
+@Component
+public class AdaptiveBatchController {
+
+	private static final double EWMA_WEIGHT = 0.2;
+
+	@Value("${fxdeals.ingest.adaptive.min-batch-size:50}")
+	private int minBatchSize;
+
+	@Value("${fxdeals.ingest.adaptive.max-batch-size:5000}")
+	private int maxBatchSize;
+
+	@Value("${fxdeals.ingest.adaptive.initial-batch-size:500}")
+	private int initialBatchSize;
+
+	@Value("${fxdeals.ingest.adaptive.batch-size-step:50}")
+	private int batchSizeStep;
+
+	@Value("${fxdeals.ingest.adaptive.min-writers:1}")
+	private int minWriters;
+
+	@Value("${fxdeals.ingest.adaptive.max-writers:8}")
+	private int maxWriters;
+
+	@Value("${fxdeals.ingest.adaptive.target-latency-ms:250}")
+	private long targetLatencyMs;
+
+	@Value("${fxdeals.ingest.adaptive.max-error-rate:0.05}")
+	private double maxErrorRate;
+
+	@Value("${fxdeals.ingest.adaptive.decrease-factor:0.5}")
+	private double decreaseFactor;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private volatile int batchSize;
+	private volatile int writers;
+	private volatile double latencyEwmaMs;
+	private volatile double errorRateEwma;
+	private int flushesSinceDecrease;
+	private int uncongestedFlushes;
+	private Timer flushTimer;
+
+	@PostConstruct
+	public void init() {
+		batchSize = Math.max(minBatchSize, Math.min(maxBatchSize, initialBatchSize));
+		writers = minWriters;
+		if (meterRegistry != null) {
+			Gauge.builder("fxdeals.ingest.batch.size", this, AdaptiveBatchController::getBatchSize)
+					.description("Current batch size of the batch import path").register(meterRegistry);
+			Gauge.builder("fxdeals.ingest.writers", this, AdaptiveBatchController::getWriters)
+					.description("Current number of concurrent writers of the batch import path").register(meterRegistry);
+			Gauge.builder("fxdeals.ingest.flush.latency.ewma", this, c -> c.latencyEwmaMs).baseUnit("milliseconds")
+					.description("Moving average of the batch commit latency").register(meterRegistry);
+			Gauge.builder("fxdeals.ingest.flush.error.rate.ewma", this, c -> c.errorRateEwma)
+					.description("Moving average of the fraction of deals per batch that failed to save")
+					.register(meterRegistry);
+			flushTimer = Timer.builder("fxdeals.ingest.flush").description("Batch commit latency")
+					.register(meterRegistry);
+		}
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public int getWriters() {
+		return writers;
+	}
+
+	/**
+	 * Records the outcome of one flush and adjusts the batch size and number of writers.
+	 *
+	 * @param size         The number of deals in the flush.
+	 * @param latencyNanos How long the flush took to commit, or a negative value if it did not commit as one batch
+	 *                     (it failed, or fell back to saving its deals one by one); only its errors are counted then.
+	 * @param failed       The number of deals of the flush that failed to save.
+	 */
+	public synchronized void recordFlush(int size, long latencyNanos, int failed) {
+		double latencyMs = Math.max(0, latencyNanos) / 1_000_000.0;
+		double errorRate = size > 0 ? (double) failed / size : 0;
+		if (latencyNanos >= 0) {
+			latencyEwmaMs = latencyEwmaMs == 0 ? latencyMs
+					: EWMA_WEIGHT * latencyMs + (1 - EWMA_WEIGHT) * latencyEwmaMs;
+			if (flushTimer != null) {
+				flushTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+		errorRateEwma = EWMA_WEIGHT * errorRate + (1 - EWMA_WEIGHT) * errorRateEwma;
+
+		flushesSinceDecrease++;
+		boolean congested = latencyMs > targetLatencyMs || errorRate > maxErrorRate;
+		if (congested) {
+			uncongestedFlushes = 0;
+			if (flushesSinceDecrease >= writers) {
+				batchSize = Math.max(minBatchSize, (int) (batchSize * decreaseFactor));
+				writers = Math.max(minWriters, (int) (writers * decreaseFactor));
+				flushesSinceDecrease = 0;
+			}
+			return;
+		}
+
+		batchSize = Math.min(maxBatchSize, batchSize + batchSizeStep);
+		if (batchSize == maxBatchSize && ++uncongestedFlushes >= writers) {
+			writers = Math.min(maxWriters, writers + 1);
+			uncongestedFlushes = 0;
+		}
+	}
+
+}
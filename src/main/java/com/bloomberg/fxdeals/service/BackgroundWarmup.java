@@ -0,0 +1,12 @@
+package com.bloomberg.fxdeals.service;
+
+/**
+ * Initialization that is not needed to serve the first request, such as loading caches. Warm-ups are run by
+ * {@link BackgroundWarmupRunner}, each on a background thread of its own, once the application is ready, so they do
+ * not delay opening the port or each other.
+ */
+public interface BackgroundWarmup {
+
+	void warmUp();
+
+}
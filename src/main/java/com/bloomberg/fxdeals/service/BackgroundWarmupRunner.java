@@ -0,0 +1,53 @@
+package com.bloomberg.fxdeals.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Runs every {@link BackgroundWarmup} on a background thread of its own once the application is ready to serve
+ * requests, so that a slow warm-up does not hold back the others.
+ */
+@Component
+public class BackgroundWarmupRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(BackgroundWarmupRunner.class);
+
+	@Autowired(required = false)
+	private List<BackgroundWarmup> warmups = List.of();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		long started = System.currentTimeMillis();
+		AtomicInteger remaining = new AtomicInteger(warmups.size());
+		for (BackgroundWarmup warmup : warmups) {
+			String name = ClassUtils.getUserClass(warmup).getSimpleName();
+			Thread thread = new Thread(() -> {
+				runWarmup(warmup, name);
+				if (remaining.decrementAndGet() == 0) {
+					logger.info("Background warm-ups done in {} ms", System.currentTimeMillis() - started);
+				}
+			}, "warmup-" + name);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	private void runWarmup(BackgroundWarmup warmup, String name) {
+		long started = System.currentTimeMillis();
+		try {
+			warmup.warmUp();
+			logger.info("Warm-up of {} done in {} ms", name, System.currentTimeMillis() - started);
+		} catch (Exception e) {
+			logger.warn("Warm-up of {} failed: {}", name, e.getMessage());
+		}
+	}
+
+}
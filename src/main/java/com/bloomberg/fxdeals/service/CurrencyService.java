@@ -3,8 +3,13 @@ package com.bloomberg.fxdeals.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.bloomberg.fxdeals.config.ReadWriteRoutingDataSource;
 import com.bloomberg.fxdeals.entity.Currency;
 import com.bloomberg.fxdeals.repo.CurrencyRepository;
 
@@ -16,6 +21,9 @@ public class CurrencyService {
 	@Autowired
 	private CurrencyRepository currencyRepository;
 
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
 	/**
 	 * Saves a new currency to the database and caches the currency code and ID.
 	 * 
@@ -38,24 +46,61 @@ public class CurrencyService {
 			validateCurrencyCode(currencyCode);
 			return true;
 		} catch (Exception e) {
-			logger.error("Error validating currency code: {}", currencyCode, e);
+			// Called for every ingested deal, so invalid codes are reported by the caller's diagnostics instead.
+			logger.debug("Invalid currency code: {}", currencyCode);
 			return false;
 		}
 	}
 
 	private void validateCurrencyCode(String currencyCode) {
 		try {
-			java.util.Currency currency = java.util.Currency.getInstance(currencyCode);
-			logger.info("Currency code {} is valid", currencyCode);
+			java.util.Currency.getInstance(currencyCode);
 		} catch (IllegalArgumentException e) {
-			logger.error("Invalid currency code: {}", currencyCode, e);
 			throw new IllegalArgumentException("Invalid currency code: " + currencyCode);
 		}
 	}
 
+	/**
+	 * Looks up a currency on the primary database: the ingest paths create currencies on the fly and must see the ones
+	 * created moments ago, which a replica may not have yet.
+	 */
 	public Currency getCurrencyByCode(String currencyCode) {
-		return currencyRepository.findByCurrencyCode(currencyCode).orElse(null);
+		return ReadWriteRoutingDataSource
+				.onPrimary(() -> currencyRepository.findByCurrencyCode(currencyCode).orElse(null));
+
+	}
 
+	/**
+	 * Returns the currency with the given code, creating it if it does not exist yet. Safe to call concurrently for
+	 * the same new code from several threads or instances: the insert runs in its own transaction, and if another
+	 * caller created the currency first the unique constraint rejects it and that caller's currency is returned.
+	 *
+	 * @param currencyCode A valid ISO 4217 code.
+	 * @return The persisted currency.
+	 */
+	public Currency getOrCreateCurrency(String currencyCode) {
+		Currency currency = getCurrencyByCode(currencyCode);
+		if (currency != null) {
+			return currency;
+		}
+		TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+		newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		try {
+			return newTransaction.execute(status -> {
+				Currency newCurrency = new Currency();
+				newCurrency.setCurrencyCode(currencyCode);
+				Currency savedCurrency = currencyRepository.saveAndFlush(newCurrency);
+				logger.info("Currency saved to database : {}", savedCurrency.getCurrencyCode());
+				return savedCurrency;
+			});
+		} catch (DataIntegrityViolationException e) {
+			Currency existing = getCurrencyByCode(currencyCode);
+			if (existing == null) {
+				throw e;
+			}
+			logger.debug("Currency {} was created concurrently", currencyCode);
+			return existing;
+		}
 	}
 
 	public Currency getCurrencyById(Long id) {
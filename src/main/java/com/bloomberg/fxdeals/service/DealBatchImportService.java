@@ -0,0 +1,195 @@
+package com.bloomberg.fxdeals.service;
+
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+import com.bloomberg.fxdeals.entity.Currency;
+import com.opencsv.CSVReader;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Imports CSV batch uploads in batches written by concurrent writers. The batch size and the number of writers are
+ * taken from {@link AdaptiveBatchController} before every flush, and every flush reports its commit latency and
+ * failures back to it, so throughput follows what the database can currently sustain.
+ * <p>
+ * A flush that fails rejects its valid deals as {@link RejectionReason#SAVE_FAILED}; the rest of the file is still
+ * read and written.
+ */
+@Service
+public class DealBatchImportService {
+
+	private static final Logger logger = LoggerFactory.getLogger(DealBatchImportService.class);
+
+	@Autowired
+	private DealRecordValidator dealRecordValidator;
+
+	@Autowired
+	private DealBatchWriter dealBatchWriter;
+
+	@Autowired
+	private AdaptiveBatchController adaptiveBatchController;
+
+	@Autowired
+	private IngestDiagnosticsService ingestDiagnosticsService;
+
+	@Value("${fxdeals.ingest.adaptive.max-writers:8}")
+	private int maxWriters;
+
+	private ExecutorService writerExecutor;
+
+	@PostConstruct
+	public void start() {
+		writerExecutor = Executors.newFixedThreadPool(Math.max(1, maxWriters));
+	}
+
+	@PreDestroy
+	public void stop() {
+		writerExecutor.shutdown();
+	}
+
+	/**
+	 * Saves multiple deals from a CSV file to the database in adaptively sized batches and returns the results.
+	 *
+	 * @param reader The reader for the CSV file.
+	 * @param debug  Whether every rejected deal of this import should be logged in full.
+	 * @return A summary of the results, including the number of successful and failed deals.
+	 */
+	public DealService.SaveResult importCsv(Reader reader, boolean debug) {
+		IngestDiagnostics diagnostics = ingestDiagnosticsService.start("addBatch", debug);
+		Set<String> seenIds = ConcurrentHashMap.newKeySet();
+		Map<String, Currency> currencies = new ConcurrentHashMap<>();
+		Deque<CompletableFuture<FlushResult>> inFlight = new ArrayDeque<>();
+		FlushResult totals = new FlushResult();
+
+		try (CSVReader csvReader = new CSVReader(reader)) {
+			List<String[]> rows = new ArrayList<>();
+			String[] values;
+			while ((values = csvReader.readNext()) != null) {
+				rows.add(values);
+				if (rows.size() >= adaptiveBatchController.getBatchSize()) {
+					List<String[]> batch = rows;
+					inFlight.addLast(CompletableFuture.supplyAsync(() -> flush(batch, seenIds, currencies, diagnostics),
+							writerExecutor));
+					rows = new ArrayList<>();
+					while (inFlight.size() >= adaptiveBatchController.getWriters()) {
+						totals.add(inFlight.removeFirst().join());
+					}
+				}
+			}
+			if (!rows.isEmpty()) {
+				List<String[]> batch = rows;
+				inFlight.addLast(CompletableFuture.supplyAsync(() -> flush(batch, seenIds, currencies, diagnostics),
+						writerExecutor));
+			}
+
+		} catch (Exception e) {
+			logger.error("[import {}] Error processing CSV file for deals", diagnostics.getImportId(), e);
+			totals.errors.add("General error processing CSV file: " + e.getMessage());
+		} finally {
+			// Wait for every flush still in flight, even after a failure, so the deals they saved are counted.
+			while (!inFlight.isEmpty()) {
+				try {
+					totals.add(inFlight.removeFirst().join());
+				} catch (Exception e) {
+					logger.error("[import {}] Error writing a batch of deals", diagnostics.getImportId(), e);
+					totals.errors.add("Error writing a batch of deals: " + e.getMessage());
+				}
+			}
+		}
+
+		diagnostics.finish(totals.totalDeals, totals.successfulDeals);
+
+		return new DealService.SaveResult(totals.successfulDeals, totals.totalDeals, totals.errors);
+	}
+
+	private FlushResult flush(List<String[]> rows, Set<String> seenIds, Map<String, Currency> currencies,
+			IngestDiagnostics diagnostics) {
+		List<DealRecord> records = new ArrayList<>(rows.size());
+		RejectionReason[] reasons = new RejectionReason[rows.size()];
+		for (int i = 0; i < rows.size(); i++) {
+			DealRecord record = DealRecord.fromCsvRow(rows.get(i));
+			records.add(record);
+			reasons[i] = dealRecordValidator.validate(record);
+			if (reasons[i] == null && !seenIds.add(record.getDealUniqueId())) {
+				reasons[i] = RejectionReason.DUPLICATE_IN_INPUT;
+			}
+			if (reasons[i] != null) {
+				diagnostics.reject(reasons[i], rows.get(i).length > 0 ? rows.get(i)[0] : null);
+			}
+		}
+
+		int valid = 0;
+		for (RejectionReason reason : reasons) {
+			if (reason == null) {
+				valid++;
+			}
+		}
+
+		FlushResult result = new FlushResult();
+		// Only a batch that commits as a whole reports its latency, so slow one-by-one fallbacks do not skew it.
+		AtomicLong commitLatency = new AtomicLong(-1);
+		int saved;
+		try {
+			saved = dealBatchWriter.write(records, reasons, currencies, diagnostics, commitLatency::set);
+		} catch (Exception e) {
+			logger.error("[import {}] Error writing a batch of deals", diagnostics.getImportId(), e);
+			result.errors.add("Error writing a batch of deals: " + e.getMessage());
+			saved = 0;
+			for (int i = 0; i < reasons.length; i++) {
+				if (reasons[i] == null) {
+					reasons[i] = RejectionReason.SAVE_FAILED;
+					diagnostics.reject(reasons[i], records.get(i).getDealUniqueId(), e);
+				}
+			}
+		}
+
+		result.totalDeals = rows.size();
+		result.successfulDeals = saved;
+		int failed = 0;
+		for (int i = 0; i < reasons.length; i++) {
+			if (reasons[i] == RejectionReason.SAVE_FAILED) {
+				failed++;
+			}
+			if (reasons[i] != null) {
+				String id = rows.get(i).length > 0 ? rows.get(i)[0] : "";
+				result.errors.add("Rejected deal with unique ID " + id + ": " + reasons[i].getDescription());
+			}
+		}
+		if (valid > 0) {
+			adaptiveBatchController.recordFlush(valid, commitLatency.get(), failed);
+		}
+		return result;
+	}
+
+	private static class FlushResult {
+		private final List<String> errors = new ArrayList<>();
+		private int totalDeals;
+		private int successfulDeals;
+
+		private void add(FlushResult flush) {
+			totalDeals += flush.totalDeals;
+			successfulDeals += flush.successfulDeals;
+			errors.addAll(flush.errors);
+		}
+	}
+
+}
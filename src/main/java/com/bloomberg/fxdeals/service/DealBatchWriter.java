@@ -0,0 +1,131 @@
+package com.bloomberg.fxdeals.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+import com.bloomberg.fxdeals.entity.Currency;
+import com.bloomberg.fxdeals.entity.Deal;
+
+/**
+ * Persists batches of validated {@link DealRecord}s for the bulk ingest paths and works out, per record, why it was
+ * not saved. A batch is saved in one transaction through {@link DealService#saveDealBatch(List)}; if that transaction
+ * fails as a whole the batch is retried one deal at a time.
+ */
+@Component
+public class DealBatchWriter {
+
+	private static final Logger logger = LoggerFactory.getLogger(DealBatchWriter.class);
+
+	@Autowired
+	private DealService dealService;
+
+	/**
+	 * Saves one batch of records. Only IDs repeated within the batch are caught here; callers reject IDs repeated
+	 * across the batches of one import before passing them in.
+	 *
+	 * @param records     The records of the batch.
+	 * @param reasons     Rejection reason per record, aligned with {@code records}. Records that already have a
+	 *                    reason are skipped; the reason of every record that is not saved is filled in.
+	 * @param currencies  Currencies already resolved by the caller, keyed by code; updated with any new lookups.
+	 * @param diagnostics The diagnostics of the import; the rejections decided here are recorded in it, the ones
+	 *                    passed in through {@code reasons} are not.
+	 * @return The number of deals saved.
+	 */
+	public int write(List<DealRecord> records, RejectionReason[] reasons, Map<String, Currency> currencies,
+			IngestDiagnostics diagnostics) {
+		return write(records, reasons, currencies, diagnostics, latencyNanos -> {
+		});
+	}
+
+	/**
+	 * Saves one batch of records like {@link #write(List, RejectionReason[], Map, IngestDiagnostics)} and reports how
+	 * long its transaction took to commit.
+	 *
+	 * @param records       The records of the batch.
+	 * @param reasons       Rejection reason per record, aligned with {@code records}.
+	 * @param currencies    Currencies already resolved by the caller, keyed by code.
+	 * @param diagnostics   The diagnostics of the import.
+	 * @param commitLatency Given the nanoseconds the batch transaction took once it committed. Not called when the
+	 *                      batch had nothing to save or was rolled back and saved one deal at a time.
+	 * @return The number of deals saved.
+	 */
+	public int write(List<DealRecord> records, RejectionReason[] reasons, Map<String, Currency> currencies,
+			IngestDiagnostics diagnostics, LongConsumer commitLatency) {
+		Set<String> batchIds = new HashSet<>();
+		List<Integer> indexes = new ArrayList<>(records.size());
+		List<Deal> deals = new ArrayList<>(records.size());
+
+		for (int i = 0; i < records.size(); i++) {
+			if (reasons[i] != null) {
+				continue;
+			}
+			DealRecord record = records.get(i);
+			if (!batchIds.add(record.getDealUniqueId())) {
+				reasons[i] = RejectionReason.DUPLICATE_IN_INPUT;
+				diagnostics.reject(reasons[i], record.getDealUniqueId());
+				continue;
+			}
+			try {
+				deals.add(dealService.toDeal(record, currencies));
+				indexes.add(i);
+			} catch (Exception e) {
+				reasons[i] = RejectionReason.SAVE_FAILED;
+				diagnostics.reject(reasons[i], record.getDealUniqueId(), e);
+			}
+		}
+
+		if (deals.isEmpty()) {
+			return 0;
+		}
+
+		int saved = 0;
+		try {
+			long started = System.nanoTime();
+			List<Deal> savedDeals = dealService.saveDealBatch(deals);
+			commitLatency.accept(System.nanoTime() - started);
+			Set<String> savedIds = new HashSet<>();
+			for (Deal deal : savedDeals) {
+				savedIds.add(deal.getDealUniqueId());
+			}
+			for (int i = 0; i < deals.size(); i++) {
+				if (savedIds.contains(deals.get(i).getDealUniqueId())) {
+					saved++;
+				} else {
+					reasons[indexes.get(i)] = RejectionReason.ALREADY_EXISTS;
+					diagnostics.reject(RejectionReason.ALREADY_EXISTS, deals.get(i).getDealUniqueId());
+				}
+			}
+		} catch (Exception e) {
+			// The batch was rolled back as a whole (typically a concurrent insert of the same unique ID), so fall
+			// back to saving the deals one by one to find out which of them failed.
+			logger.warn("[import {}] Batch save of {} deals failed, retrying one by one: {}",
+					diagnostics.getImportId(), deals.size(), e.getMessage());
+			for (int i = 0; i < deals.size(); i++) {
+				Deal deal = deals.get(i);
+				deal.setDealId(null);
+				try {
+					dealService.saveDeal(deal);
+					saved++;
+				} catch (IllegalArgumentException ex) {
+					reasons[indexes.get(i)] = RejectionReason.ALREADY_EXISTS;
+					diagnostics.reject(RejectionReason.ALREADY_EXISTS, deal.getDealUniqueId());
+				} catch (Exception ex) {
+					reasons[indexes.get(i)] = RejectionReason.SAVE_FAILED;
+					diagnostics.reject(RejectionReason.SAVE_FAILED, deal.getDealUniqueId(), ex);
+				}
+			}
+		}
+		return saved;
+	}
+
+}
@@ -0,0 +1,500 @@
+package com.bloomberg.fxdeals.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bloomberg.fxdeals.config.ReadWriteRoutingDataSource;
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.event.DealsSavedEvent;
+import com.bloomberg.fxdeals.repo.DealRepository;
+
+/**
+ * In-memory copy of the deals of the last days, stored column by column off-heap for time-window reporting queries.
+ * Every deal is a row of primitive columns in direct buffers: the timestamp in epoch microseconds, the amount and the
+ * USD notional as longs scaled by {@value #AMOUNT_SCALE} decimals, and both currencies as short ordinals. Rows are
+ * appended to segments of at most {@code fxdeals.column-store.segment-capacity} rows, whose buffers start small and
+ * double as they fill, and a segment is dropped as a whole once all of its deals are older than the retention.
+ * <p>
+ * The store is loaded by streaming the deals from the database as a background warm-up once the application is
+ * ready; every deal saved after that is appended when its transaction commits. Save events that arrive before the
+ * load has finished are held back and merged once it has, skipping the deals the load already read. Appends are
+ * serialized, scans never lock: a scan sees every row appended to a segment before it reads the segment's size.
+ */
+@Component
+public class DealColumnStore implements BackgroundWarmup {
+
+	private static final Logger logger = LoggerFactory.getLogger(DealColumnStore.class);
+
+	public static final int AMOUNT_SCALE = 2;
+
+	/**
+	 * Stored in the USD notional column of a deal saved without one.
+	 */
+	private static final long NO_NOTIONAL = Long.MIN_VALUE;
+
+	@Autowired
+	private DealRepository dealRepository;
+
+	@Value("${fxdeals.column-store.enabled:true}")
+	private boolean enabled;
+
+	@Value("${fxdeals.column-store.retention-days:7}")
+	private int retentionDays;
+
+	@Value("${fxdeals.column-store.segment-capacity:1048576}")
+	private int segmentCapacity;
+
+	private final List<Segment> segments = new CopyOnWriteArrayList<>();
+	private final Map<String, Short> currencyOrdinals = new ConcurrentHashMap<>();
+	private final Object appendLock = new Object();
+	private Segment currentSegment;
+
+	/**
+	 * Deals saved while the initial load has not finished yet; null once it has. Their transactions may have
+	 * committed before or after the load's snapshot, so they are merged afterwards by deal ID.
+	 */
+	private List<Deal> pendingDeals = new ArrayList<>();
+
+	/**
+	 * Loads the store from the primary: a replica lagging behind would miss deals committed before the application
+	 * started, whose save events never arrive.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void warmUp() {
+		ReadWriteRoutingDataSource.onPrimary(() -> {
+			load();
+			return null;
+		});
+	}
+
+	/**
+	 * Streams the deals within the retention from the database into the store. Must run inside a transaction.
+	 */
+	public void load() {
+		if (!enabled) {
+			return;
+		}
+		long started = System.currentTimeMillis();
+		long loaded = 0;
+		long skipped = 0;
+		long cutoff = cutoffMicros();
+		try (Stream<Object[]> rows = dealRepository.streamDealColumns(Timestamp.valueOf(
+				LocalDateTime.now().minusDays(retentionDays)))) {
+			for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+				try {
+					if (append((Long) row[0], (String) row[1], (String) row[2], (Timestamp) row[3],
+							(BigDecimal) row[4], (BigDecimal) row[5], cutoff)) {
+						loaded++;
+					}
+				} catch (Exception e) {
+					skipped++;
+					logger.debug("Could not load deal {} into the column store", row[0], e);
+				}
+			}
+		} finally {
+			loaded += mergePendingDeals();
+		}
+		if (skipped > 0) {
+			logger.warn("Skipped {} deals that could not be loaded into the column store", skipped);
+		}
+		logger.info("Loaded {} deals of the last {} days into the column store in {} ms", loaded, retentionDays,
+				System.currentTimeMillis() - started);
+	}
+
+	/**
+	 * Appends the deals saved during the load that it did not read, and switches to appending save events directly.
+	 * Runs under the append lock so that no event slips in between.
+	 */
+	private long mergePendingDeals() {
+		synchronized (appendLock) {
+			List<Deal> deals = pendingDeals;
+			pendingDeals = null;
+			if (deals == null || deals.isEmpty()) {
+				return 0;
+			}
+			Set<Long> pendingIds = new HashSet<>();
+			for (Deal deal : deals) {
+				pendingIds.add(deal.getDealId());
+			}
+			Set<Long> loadedIds = new HashSet<>();
+			for (Segment segment : segments) {
+				for (int i = 0; i < segment.size; i++) {
+					long dealId = segment.columns.dealIds.get(i);
+					if (pendingIds.contains(dealId)) {
+						loadedIds.add(dealId);
+					}
+				}
+			}
+			long merged = 0;
+			long cutoff = cutoffMicros();
+			for (Deal deal : deals) {
+				// An ID can also be pending twice when a save event is delivered again.
+				if (loadedIds.add(deal.getDealId()) && appendDeal(deal, cutoff)) {
+					merged++;
+				}
+			}
+			return merged;
+		}
+	}
+
+	/**
+	 * Appends the deals of a committed transaction. Failures are only logged: the store is a read-side copy and must
+	 * never fail a save.
+	 *
+	 * @param event The saved deals.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onDealsSaved(DealsSavedEvent event) {
+		if (!enabled) {
+			return;
+		}
+		synchronized (appendLock) {
+			if (pendingDeals != null) {
+				pendingDeals.addAll(event.getDeals());
+				return;
+			}
+		}
+		long cutoff = cutoffMicros();
+		for (Deal deal : event.getDeals()) {
+			appendDeal(deal, cutoff);
+		}
+	}
+
+	private boolean appendDeal(Deal deal, long cutoff) {
+		try {
+			return append(deal.getDealId(), deal.getFromCurrency().getCurrencyCode(),
+					deal.getToCurrency().getCurrencyCode(), deal.getDealTimestamp(), deal.getDealAmount(),
+					deal.getUsdNotional(), cutoff);
+		} catch (Exception e) {
+			logger.debug("Could not add deal {} to the column store", deal.getDealUniqueId(), e);
+			return false;
+		}
+	}
+
+	private boolean append(Long dealId, String fromCurrency, String toCurrency, Timestamp timestamp,
+			BigDecimal amount, BigDecimal usdNotional, long cutoff) {
+		long micros = toEpochMicros(timestamp);
+		if (micros < cutoff) {
+			return false;
+		}
+		long scaledAmount = scale(amount);
+		long scaledNotional = NO_NOTIONAL;
+		if (usdNotional != null) {
+			try {
+				scaledNotional = scale(usdNotional);
+			} catch (ArithmeticException e) {
+				// Kept without its notional: it is only counted as such by aggregate.
+				logger.debug("USD notional {} of deal {} is too large for the column store", usdNotional, dealId);
+			}
+		}
+
+		synchronized (appendLock) {
+			short from = currencyOrdinal(fromCurrency);
+			short to = currencyOrdinal(toCurrency);
+			if (currentSegment == null || currentSegment.isFull()) {
+				evictExpired(cutoff);
+				currentSegment = new Segment(segmentCapacity);
+				segments.add(currentSegment);
+			}
+			currentSegment.append(dealId != null ? dealId : 0, micros, scaledAmount, scaledNotional, from, to);
+		}
+		return true;
+	}
+
+	private static long scale(BigDecimal value) {
+		return value.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	private short currencyOrdinal(String currencyCode) {
+		Short ordinal = currencyOrdinals.get(currencyCode);
+		if (ordinal == null) {
+			if (currencyOrdinals.size() > Short.MAX_VALUE) {
+				throw new IllegalStateException("Too many currencies for the column store");
+			}
+			ordinal = (short) currencyOrdinals.size();
+			currencyOrdinals.put(currencyCode, ordinal);
+		}
+		return ordinal;
+	}
+
+	private void evictExpired(long cutoff) {
+		for (Segment segment : segments) {
+			if (segment.isFull() && segment.maxTimestamp < cutoff) {
+				segments.remove(segment);
+			}
+		}
+	}
+
+	/**
+	 * The number of deals currently held, including any that have already fallen out of the retention but whose
+	 * segment has not been dropped yet.
+	 */
+	public long size() {
+		long size = 0;
+		for (Segment segment : segments) {
+			size += segment.size;
+		}
+		return size;
+	}
+
+	/**
+	 * Aggregates the deals made within a time window. Amounts are only summed when {@code fromCurrency} is given, since
+	 * they are in the deals' own from currency; USD notionals are summed either way.
+	 *
+	 * @param from         Start of the window, inclusive; the retention is the earliest start.
+	 * @param to           End of the window, exclusive.
+	 * @param fromCurrency Only deals from this currency, or null for all.
+	 * @param toCurrency   Only deals to this currency, or null for all.
+	 * @return The number of matching deals, the sum of their USD notionals and, for a single from currency, the sum,
+	 *         minimum and maximum of their amounts.
+	 */
+	public DealAggregate aggregate(Timestamp from, Timestamp to, String fromCurrency, String toCurrency) {
+		// The segments still hold deals older than the retention until they are dropped as a whole.
+		long fromMicros = Math.max(toEpochMicros(from), cutoffMicros());
+		long toMicros = toEpochMicros(to);
+		int fromOrdinal = ordinalFilter(fromCurrency);
+		int toOrdinal = ordinalFilter(toCurrency);
+		boolean singleCurrency = fromOrdinal != ANY_CURRENCY;
+		if (fromOrdinal == UNKNOWN_CURRENCY || toOrdinal == UNKNOWN_CURRENCY) {
+			return new DealAggregate(0, singleCurrency, BigInteger.ZERO, Long.MAX_VALUE, Long.MIN_VALUE,
+					BigInteger.ZERO, 0);
+		}
+
+		long count = 0;
+		BigInteger sum = BigInteger.ZERO;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		BigInteger usdSum = BigInteger.ZERO;
+		long withoutNotional = 0;
+		for (Segment segment : segments) {
+			int size = segment.size;
+			if (size == 0 || segment.maxTimestamp < fromMicros || segment.minTimestamp >= toMicros) {
+				continue;
+			}
+			Columns columns = segment.columns;
+			LongBuffer timestamps = columns.timestamps;
+			LongBuffer amounts = columns.amounts;
+			LongBuffer usdNotionals = columns.usdNotionals;
+			ShortBuffer fromCurrencies = columns.fromCurrencies;
+			ShortBuffer toCurrencies = columns.toCurrencies;
+			// The sums are split into the low and high 32 bits of every value so that neither half can overflow.
+			long segmentCount = 0;
+			long sumLow = 0;
+			long sumHigh = 0;
+			long usdLow = 0;
+			long usdHigh = 0;
+			for (int i = 0; i < size; i++) {
+				long timestamp = timestamps.get(i);
+				boolean match = timestamp >= fromMicros & timestamp < toMicros
+						& (fromOrdinal == ANY_CURRENCY | fromCurrencies.get(i) == fromOrdinal)
+						& (toOrdinal == ANY_CURRENCY | toCurrencies.get(i) == toOrdinal);
+				if (match) {
+					long amount = amounts.get(i);
+					segmentCount++;
+					sumLow += amount & 0xFFFFFFFFL;
+					sumHigh += amount >> 32;
+					min = Math.min(min, amount);
+					max = Math.max(max, amount);
+					long notional = usdNotionals.get(i);
+					if (notional == NO_NOTIONAL) {
+						withoutNotional++;
+					} else {
+						usdLow += notional & 0xFFFFFFFFL;
+						usdHigh += notional >> 32;
+					}
+				}
+			}
+			count += segmentCount;
+			sum = sum.add(BigInteger.valueOf(sumHigh).shiftLeft(32)).add(BigInteger.valueOf(sumLow));
+			usdSum = usdSum.add(BigInteger.valueOf(usdHigh).shiftLeft(32)).add(BigInteger.valueOf(usdLow));
+		}
+		return new DealAggregate(count, singleCurrency, sum, min, max, usdSum, withoutNotional);
+	}
+
+	private static final int ANY_CURRENCY = -1;
+	private static final int UNKNOWN_CURRENCY = -2;
+
+	private int ordinalFilter(String currencyCode) {
+		if (currencyCode == null || currencyCode.isEmpty()) {
+			return ANY_CURRENCY;
+		}
+		Short ordinal = currencyOrdinals.get(currencyCode);
+		return ordinal != null ? ordinal : UNKNOWN_CURRENCY;
+	}
+
+	private long cutoffMicros() {
+		return toEpochMicros(Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+	}
+
+	static long toEpochMicros(Timestamp timestamp) {
+		return Math.floorDiv(timestamp.getTime(), 1000) * 1_000_000 + timestamp.getNanos() / 1000;
+	}
+
+	/**
+	 * A block of at most {@code capacity} rows. Only the appending thread writes; the size is published last, so a
+	 * reader that reads the size first can read every row below it.
+	 */
+	private static final class Segment {
+
+		private static final int INITIAL_ROWS = 1024;
+
+		private final int capacity;
+		private volatile Columns columns;
+		private volatile long minTimestamp = Long.MAX_VALUE;
+		private volatile long maxTimestamp = Long.MIN_VALUE;
+		private volatile int size;
+
+		Segment(int capacity) {
+			this.capacity = capacity;
+			this.columns = new Columns(Math.min(capacity, INITIAL_ROWS));
+		}
+
+		boolean isFull() {
+			return size == capacity;
+		}
+
+		void append(long dealId, long timestamp, long amount, long usdNotional, short fromCurrency, short toCurrency) {
+			int row = size;
+			Columns target = columns;
+			if (row == target.rows) {
+				// Readers may still hold the old columns; they stay valid for every row they can see.
+				target = target.grow((int) Math.min(capacity, 2L * target.rows), row);
+				columns = target;
+			}
+			target.dealIds.put(row, dealId);
+			target.timestamps.put(row, timestamp);
+			target.amounts.put(row, amount);
+			target.usdNotionals.put(row, usdNotional);
+			target.fromCurrencies.put(row, fromCurrency);
+			target.toCurrencies.put(row, toCurrency);
+			minTimestamp = Math.min(minTimestamp, timestamp);
+			maxTimestamp = Math.max(maxTimestamp, timestamp);
+			size = row + 1;
+		}
+	}
+
+	/**
+	 * The column buffers of a segment, all sized for the same number of rows.
+	 */
+	private static final class Columns {
+
+		private final int rows;
+		private final LongBuffer dealIds;
+		private final LongBuffer timestamps;
+		private final LongBuffer amounts;
+		private final LongBuffer usdNotionals;
+		private final ShortBuffer fromCurrencies;
+		private final ShortBuffer toCurrencies;
+
+		Columns(int rows) {
+			this.rows = rows;
+			this.dealIds = allocate(rows * Long.BYTES).asLongBuffer();
+			this.timestamps = allocate(rows * Long.BYTES).asLongBuffer();
+			this.amounts = allocate(rows * Long.BYTES).asLongBuffer();
+			this.usdNotionals = allocate(rows * Long.BYTES).asLongBuffer();
+			this.fromCurrencies = allocate(rows * Short.BYTES).asShortBuffer();
+			this.toCurrencies = allocate(rows * Short.BYTES).asShortBuffer();
+		}
+
+		Columns grow(int newRows, int used) {
+			Columns grown = new Columns(newRows);
+			grown.dealIds.put(0, dealIds, 0, used);
+			grown.timestamps.put(0, timestamps, 0, used);
+			grown.amounts.put(0, amounts, 0, used);
+			grown.usdNotionals.put(0, usdNotionals, 0, used);
+			grown.fromCurrencies.put(0, fromCurrencies, 0, used);
+			grown.toCurrencies.put(0, toCurrencies, 0, used);
+			return grown;
+		}
+
+		private static ByteBuffer allocate(int bytes) {
+			return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+		}
+	}
+
+	/**
+	 * The result of {@link DealColumnStore#aggregate(Timestamp, Timestamp, String, String)}. Sum, minimum and maximum
+	 * of the amounts are null when the deals were not restricted to one from currency; minimum and maximum are also
+	 * null when no deal matched.
+	 */
+	public static class DealAggregate {
+		private final long count;
+		private final BigDecimal sum;
+		private final BigDecimal min;
+		private final BigDecimal max;
+		private final BigDecimal usdNotional;
+		private final long countWithoutUsdNotional;
+
+		DealAggregate(long count, boolean singleCurrency, BigInteger scaledSum, long scaledMin, long scaledMax,
+				BigInteger scaledUsdNotional, long countWithoutUsdNotional) {
+			this.count = count;
+			this.sum = singleCurrency ? new BigDecimal(scaledSum, AMOUNT_SCALE) : null;
+			this.min = singleCurrency && count > 0 ? BigDecimal.valueOf(scaledMin, AMOUNT_SCALE) : null;
+			this.max = singleCurrency && count > 0 ? BigDecimal.valueOf(scaledMax, AMOUNT_SCALE) : null;
+			this.usdNotional = new BigDecimal(scaledUsdNotional, AMOUNT_SCALE);
+			this.countWithoutUsdNotional = countWithoutUsdNotional;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public BigDecimal getSum() {
+			return sum;
+		}
+
+		public BigDecimal getMin() {
+			return min;
+		}
+
+		public BigDecimal getMax() {
+			return max;
+		}
+
+		/**
+		 * @return The sum of the USD notionals of the deals that have one.
+		 */
+		public BigDecimal getUsdNotional() {
+			return usdNotional;
+		}
+
+		/**
+		 * @return The number of deals that were saved without a USD notional and are missing from
+		 *         {@link #getUsdNotional()}.
+		 */
+		public long getCountWithoutUsdNotional() {
+			return countWithoutUsdNotional;
+		}
+
+		@Override
+		public String toString() {
+			return "DealAggregate [count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max
+					+ ", usdNotional=" + usdNotional + ", countWithoutUsdNotional=" + countWithoutUsdNotional + "]";
+		}
+	}
+
+}
@@ -0,0 +1,232 @@
+package com.bloomberg.fxdeals.service;
+
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+import com.bloomberg.fxdeals.repo.DealRepository;
+import com.opencsv.CSVReader;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs the parse, validate and duplicate-check steps of {@link DealBatchImportService#importCsv(Reader, boolean)}
+ * without writing anything. Rows are read in chunks and every chunk is validated on its own worker thread; duplicates are found with
+ * a concurrent set of the unique IDs seen in the file and one read-only lookup per chunk against the database.
+ * <p>
+ * All dry runs share one pool of {@code fxdeals.dry-run.parallelism} workers, which also bounds the database
+ * connections they take. When its queue is full the request thread validates the chunk itself.
+ */
+@Service
+public class DealDryRunService {
+
+	private static final Logger logger = LoggerFactory.getLogger(DealDryRunService.class);
+
+	/**
+	 * The IDs of a chunk are looked up in one {@code IN} list, and PostgreSQL takes at most 32767 bind parameters per
+	 * statement.
+	 */
+	static final int MAX_CHUNK_SIZE = 32000;
+
+	@Autowired
+	private DealRepository dealRepository;
+
+	@Autowired
+	private DealRecordValidator dealRecordValidator;
+
+	@Autowired
+	private IngestDiagnosticsService ingestDiagnosticsService;
+
+	@Value("${fxdeals.dry-run.chunk-size:5000}")
+	private int chunkSize;
+
+	@Value("${fxdeals.dry-run.max-errors:1000}")
+	private int maxErrors;
+
+	@Value("${fxdeals.dry-run.parallelism:0}")
+	private int parallelism;
+
+	private ExecutorService executor;
+
+	@PostConstruct
+	public void start() {
+		if (chunkSize > MAX_CHUNK_SIZE) {
+			logger.warn("fxdeals.dry-run.chunk-size {} is above the maximum, using {}", chunkSize, MAX_CHUNK_SIZE);
+		}
+		chunkSize = Math.min(Math.max(1, chunkSize), MAX_CHUNK_SIZE);
+		int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadIds = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * 2), runnable -> {
+					Thread thread = new Thread(runnable, "dry-run-" + threadIds.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		parallelism = threads;
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Validates all deals of a CSV file as {@link DealBatchImportService#importCsv(Reader, boolean)} would, without
+	 * saving them.
+	 *
+	 * @param reader The reader for the CSV file.
+	 * @param debug  Whether every rejected deal of this dry run should be logged in full.
+	 * @return A summary of the results, where successful deals are the deals that would have been saved.
+	 */
+	public DryRunResult validateDealsFromCsv(Reader reader, boolean debug) {
+		IngestDiagnostics diagnostics = ingestDiagnosticsService.start("addBatch?dryRun", debug);
+		Set<String> seenIds = ConcurrentHashMap.newKeySet();
+		Deque<CompletableFuture<ChunkResult>> inFlight = new ArrayDeque<>();
+		Totals totals = new Totals();
+
+		try (CSVReader csvReader = new CSVReader(reader)) {
+			List<String[]> chunk = new ArrayList<>(chunkSize);
+			String[] values;
+			while ((values = csvReader.readNext()) != null) {
+				chunk.add(values);
+				if (chunk.size() >= chunkSize) {
+					submit(chunk, seenIds, diagnostics, inFlight);
+					chunk = new ArrayList<>(chunkSize);
+					// Bound the number of parsed-but-unvalidated rows held in memory.
+					while (inFlight.size() >= parallelism * 2) {
+						totals.merge(inFlight.removeFirst().join(), maxErrors);
+					}
+				}
+			}
+			if (!chunk.isEmpty()) {
+				submit(chunk, seenIds, diagnostics, inFlight);
+			}
+			while (!inFlight.isEmpty()) {
+				totals.merge(inFlight.removeFirst().join(), maxErrors);
+			}
+
+		} catch (Exception e) {
+			logger.error("[import {}] Error processing CSV file for dry run", diagnostics.getImportId(), e);
+			totals.errors.add("General error processing CSV file: " + e.getMessage());
+			for (CompletableFuture<ChunkResult> future : inFlight) {
+				future.cancel(false);
+			}
+		}
+
+		diagnostics.finish(totals.totalDeals, totals.successfulDeals);
+		return new DryRunResult(totals.successfulDeals, totals.totalDeals, totals.errors,
+				Collections.unmodifiableMap(diagnostics.getRejectionCounts()));
+	}
+
+	private void submit(List<String[]> chunk, Set<String> seenIds, IngestDiagnostics diagnostics,
+			Deque<CompletableFuture<ChunkResult>> inFlight) {
+		inFlight.addLast(CompletableFuture.supplyAsync(() -> validateChunk(chunk, seenIds, diagnostics), executor));
+	}
+
+	private ChunkResult validateChunk(List<String[]> rows, Set<String> seenIds, IngestDiagnostics diagnostics) {
+		ChunkResult chunkResult = new ChunkResult(maxErrors, diagnostics);
+		List<String> candidateIds = new ArrayList<>(rows.size());
+
+		for (String[] values : rows) {
+			chunkResult.totalDeals++;
+			DealRecord record = DealRecord.fromCsvRow(values);
+			RejectionReason reason = dealRecordValidator.validate(record);
+			if (reason == null && !seenIds.add(record.getDealUniqueId())) {
+				reason = RejectionReason.DUPLICATE_IN_INPUT;
+			}
+			if (reason == null) {
+				candidateIds.add(record.getDealUniqueId());
+			} else {
+				chunkResult.reject(reason, values);
+			}
+		}
+
+		if (!candidateIds.isEmpty()) {
+			Set<String> existing = new HashSet<>(dealRepository.findExistingDealUniqueIds(candidateIds));
+			for (String id : existing) {
+				chunkResult.reject(RejectionReason.ALREADY_EXISTS, new String[] { id });
+			}
+			chunkResult.successfulDeals = candidateIds.size() - existing.size();
+		}
+		return chunkResult;
+	}
+
+	private static class ChunkResult {
+		private final List<String> errors = new ArrayList<>();
+		private final int maxErrors;
+		private final IngestDiagnostics diagnostics;
+		private int totalDeals;
+		private int successfulDeals;
+
+		private ChunkResult(int maxErrors, IngestDiagnostics diagnostics) {
+			this.maxErrors = maxErrors;
+			this.diagnostics = diagnostics;
+		}
+
+		private void reject(RejectionReason reason, String[] values) {
+			String id = values.length > 0 ? values[0] : "";
+			diagnostics.reject(reason, id);
+			if (errors.size() < maxErrors) {
+				errors.add(reason.getDescription() + ": " + id);
+			}
+		}
+	}
+
+	private static class Totals {
+		private final List<String> errors = new ArrayList<>();
+		private int totalDeals;
+		private int successfulDeals;
+
+		private void merge(ChunkResult chunk, int maxErrors) {
+			successfulDeals += chunk.successfulDeals;
+			totalDeals += chunk.totalDeals;
+			for (String error : chunk.errors) {
+				if (errors.size() >= maxErrors) {
+					break;
+				}
+				errors.add(error);
+			}
+		}
+	}
+
+	/**
+	 * Dry-run summary: the {@link DealService.SaveResult} a real import would return, plus how many deals would be
+	 * rejected for each reason. Error messages are capped at {@code fxdeals.dry-run.max-errors}; the counts are not.
+	 */
+	public static class DryRunResult extends DealService.SaveResult {
+
+		private final Map<RejectionReason, Long> rejectionCounts;
+
+		public DryRunResult(int successfulDeals, int totalDeals, List<String> errors,
+				Map<RejectionReason, Long> rejectionCounts) {
+			super(successfulDeals, totalDeals, errors);
+			this.rejectionCounts = rejectionCounts;
+		}
+
+		public Map<RejectionReason, Long> getRejectionCounts() {
+			return rejectionCounts;
+		}
+	}
+
+}
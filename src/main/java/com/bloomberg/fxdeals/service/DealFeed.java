@@ -0,0 +1,346 @@
+package com.bloomberg.fxdeals.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.event.DealsSavedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Push feed of committed deals. After its transaction commits, every deal is serialized to JSON once, on the
+ * committing thread, and stored as an immutable event in the next slot of a ring buffer under the next sequence
+ * number. Publishing never waits for subscribers: it overwrites the oldest event and unparks the delivery threads.
+ * <p>
+ * Every subscriber has its own delivery thread and cursor and receives the events in sequence order, batched into
+ * one write whenever several are waiting. A subscriber that falls more than {@code fxdeals.feed.max-lag} events
+ * behind, or whose next event has already been overwritten, is a slow consumer: with the {@code DROP} policy it
+ * skips to the newest event and is told how many it missed, with {@code DISCONNECT} it is disconnected.
+ * <p>
+ * Sequences start at 0 on every start, so event IDs are the sequence prefixed with the epoch of this start. A
+ * subscriber resuming after an ID of another start, or one this start has not reached yet, is told that it may have
+ * missed events and resumes with the oldest event still held.
+ */
+@Component
+public class DealFeed {
+
+	private static final Logger logger = LoggerFactory.getLogger(DealFeed.class);
+
+	public enum SlowConsumerPolicy {
+		DROP, DISCONNECT
+	}
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	@Value("${fxdeals.feed.capacity:65536}")
+	private int capacity;
+
+	@Value("${fxdeals.feed.max-lag:32768}")
+	private int maxLag;
+
+	@Value("${fxdeals.feed.slow-consumer-policy:DROP}")
+	private SlowConsumerPolicy slowConsumerPolicy;
+
+	@Value("${fxdeals.feed.max-subscribers:100}")
+	private int maxSubscribers;
+
+	@Value("${fxdeals.feed.max-batch:256}")
+	private int maxBatch;
+
+	@Value("${fxdeals.feed.heartbeat-ms:15000}")
+	private long heartbeatMs;
+
+	private AtomicReferenceArray<DealFeedEvent> ring;
+	private int mask;
+	private final long epoch = System.currentTimeMillis();
+	private final AtomicLong nextSequence = new AtomicLong();
+	private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+	private final AtomicLong subscriptionIds = new AtomicLong();
+	private Counter droppedEvents;
+	private Counter slowConsumerDisconnects;
+
+	@PostConstruct
+	public void init() {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		ring = new AtomicReferenceArray<>(size);
+		mask = size - 1;
+		maxLag = Math.min(maxLag > 0 ? maxLag : size, size);
+		if (meterRegistry != null) {
+			Gauge.builder("fxdeals.feed.subscribers", subscriptions, Set::size)
+					.description("Connected deal feed subscribers").register(meterRegistry);
+			Gauge.builder("fxdeals.feed.sequence", nextSequence, AtomicLong::get)
+					.description("Number of deals published on the feed").register(meterRegistry);
+			droppedEvents = Counter.builder("fxdeals.feed.dropped")
+					.description("Feed events skipped for slow subscribers").register(meterRegistry);
+			slowConsumerDisconnects = Counter.builder("fxdeals.feed.slow.disconnects")
+					.description("Subscribers disconnected for falling behind").register(meterRegistry);
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		for (Subscription subscription : subscriptions) {
+			subscription.close("shutdown");
+		}
+	}
+
+	/**
+	 * Publishes the deals of a committed transaction. Never fails the save: a deal that cannot be serialized is
+	 * only logged.
+	 *
+	 * @param event The saved deals.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onDealsSaved(DealsSavedEvent event) {
+		for (Deal deal : event.getDeals()) {
+			try {
+				publish(toJson(deal));
+			} catch (Exception e) {
+				logger.debug("Could not publish deal {} on the feed", deal.getDealUniqueId(), e);
+			}
+		}
+		for (Subscription subscription : subscriptions) {
+			subscription.wake();
+		}
+	}
+
+	/**
+	 * Stores one event in the ring without waking the subscribers.
+	 */
+	private long publish(String json) {
+		long sequence = nextSequence.getAndIncrement();
+		ring.set((int) sequence & mask, new DealFeedEvent(sequence, json));
+		return sequence;
+	}
+
+	private String toJson(Deal deal) throws Exception {
+		ObjectNode node = objectMapper.createObjectNode();
+		node.put("dealId", deal.getDealId());
+		node.put("dealUniqueId", deal.getDealUniqueId());
+		node.put("fromCurrency", deal.getFromCurrency() != null ? deal.getFromCurrency().getCurrencyCode() : null);
+		node.put("toCurrency", deal.getToCurrency() != null ? deal.getToCurrency().getCurrencyCode() : null);
+		node.put("dealTimestamp",
+				deal.getDealTimestamp() != null ? deal.getDealTimestamp().toLocalDateTime().toString() : null);
+		node.put("dealAmount", deal.getDealAmount());
+		node.put("usdNotional", deal.getUsdNotional());
+		return objectMapper.writeValueAsString(node);
+	}
+
+	/**
+	 * Starts delivering the feed to a new subscriber.
+	 *
+	 * @param lastEventId The ID of the last event the subscriber already has, to resume after a reconnect, or null
+	 *                    to start with the next deal published.
+	 * @param sink        The connection of the subscriber.
+	 * @return The subscription.
+	 * @throws IllegalArgumentException If the event ID is not one of this feed's.
+	 * @throws IllegalStateException    If the maximum number of subscribers is connected.
+	 */
+	public Subscription subscribe(String lastEventId, DealFeedSink sink) {
+		long lastEpoch = epoch;
+		long lastSequence = -1;
+		if (lastEventId != null) {
+			int separator = lastEventId.indexOf('-');
+			try {
+				lastEpoch = Long.parseLong(lastEventId.substring(0, separator));
+				lastSequence = Long.parseLong(lastEventId.substring(separator + 1));
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("Invalid deal feed event ID: " + lastEventId);
+			}
+		}
+		if (subscriptions.size() >= maxSubscribers) {
+			throw new IllegalStateException("Too many deal feed subscribers");
+		}
+		long head = nextSequence.get();
+		long cursor = head;
+		boolean resumeLost = false;
+		if (lastEventId != null) {
+			if (lastEpoch == epoch && lastSequence >= 0 && lastSequence < head) {
+				cursor = lastSequence + 1;
+			} else {
+				cursor = Math.max(0, head - ring.length());
+				resumeLost = true;
+			}
+		}
+		Subscription subscription = new Subscription(subscriptionIds.incrementAndGet(), cursor, resumeLost, sink);
+		subscriptions.add(subscription);
+		subscription.start();
+		return subscription;
+	}
+
+	/**
+	 * The ID under which an event is sent to subscribers.
+	 *
+	 * @param sequence The sequence of the event.
+	 * @return The epoch of this start and the sequence.
+	 */
+	public String eventId(long sequence) {
+		return epoch + "-" + sequence;
+	}
+
+	public int getSubscriberCount() {
+		return subscriptions.size();
+	}
+
+	/**
+	 * One subscriber of the feed, delivered to by its own thread.
+	 */
+	public final class Subscription implements Runnable {
+
+		private final long id;
+		private final DealFeedSink sink;
+		private final boolean resumeLost;
+		private final Thread thread;
+		private volatile boolean open = true;
+		private volatile long cursor;
+
+		private Subscription(long id, long cursor, boolean resumeLost, DealFeedSink sink) {
+			this.id = id;
+			this.cursor = cursor;
+			this.resumeLost = resumeLost;
+			this.sink = sink;
+			this.thread = new Thread(this, "deal-feed-" + id);
+			this.thread.setDaemon(true);
+		}
+
+		private void start() {
+			thread.start();
+		}
+
+		private void wake() {
+			LockSupport.unpark(thread);
+		}
+
+		public long getCursor() {
+			return cursor;
+		}
+
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void run() {
+			long heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMs);
+			long lastSent = System.nanoTime();
+			List<DealFeedEvent> batch = new ArrayList<>(maxBatch);
+			try {
+				if (resumeLost) {
+					logger.debug("Deal feed subscriber {} resumed after an unknown event", id);
+					sink.gap(-1, cursor);
+				}
+				while (open) {
+					long head = nextSequence.get();
+					if (head - cursor > maxLag) {
+						if (!fellBehind(head - cursor)) {
+							return;
+						}
+						continue;
+					}
+					long next = cursor;
+					boolean overwritten = false;
+					while (batch.size() < maxBatch && next < head) {
+						DealFeedEvent event = ring.get((int) next & mask);
+						if (event == null || event.getSequence() < next) {
+							// Claimed but not stored yet; its publisher wakes us once it is.
+							break;
+						}
+						if (event.getSequence() > next) {
+							overwritten = true;
+							break;
+						}
+						batch.add(event);
+						next++;
+					}
+					if (overwritten) {
+						batch.clear();
+						if (!fellBehind(head - cursor)) {
+							return;
+						}
+						continue;
+					}
+					if (!batch.isEmpty()) {
+						sink.send(batch);
+						cursor = next;
+						batch.clear();
+						lastSent = System.nanoTime();
+						continue;
+					}
+					if (System.nanoTime() - lastSent >= heartbeatNanos) {
+						sink.heartbeat();
+						lastSent = System.nanoTime();
+					}
+					LockSupport.parkNanos(this, heartbeatNanos);
+				}
+			} catch (Exception e) {
+				logger.debug("Deal feed subscriber {} went away: {}", id, e.getMessage());
+				close(null);
+			}
+		}
+
+		/**
+		 * Applies the slow consumer policy.
+		 *
+		 * @return True if the subscription goes on.
+		 */
+		private boolean fellBehind(long lag) throws Exception {
+			if (slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT) {
+				logger.info("Disconnecting deal feed subscriber {}: {} events behind", id, lag);
+				if (slowConsumerDisconnects != null) {
+					slowConsumerDisconnects.increment();
+				}
+				close("slow consumer: " + lag + " events behind");
+				return false;
+			}
+			long head = nextSequence.get();
+			long dropped = head - cursor;
+			cursor = head;
+			if (droppedEvents != null) {
+				droppedEvents.increment(dropped);
+			}
+			logger.debug("Deal feed subscriber {} skipped {} events", id, dropped);
+			sink.gap(dropped, head);
+			return true;
+		}
+
+		/**
+		 * Ends the subscription.
+		 *
+		 * @param reason Sent to the subscriber, or null if it went away.
+		 */
+		public synchronized void close(String reason) {
+			if (!open) {
+				return;
+			}
+			open = false;
+			subscriptions.remove(this);
+			LockSupport.unpark(thread);
+			sink.close(reason);
+		}
+	}
+
+}
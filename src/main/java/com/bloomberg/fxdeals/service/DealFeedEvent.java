@@ -0,0 +1,25 @@
+package com.bloomberg.fxdeals.service;
+
+/**
+ * A deal published on the {@link DealFeed}: its position in the feed and its JSON representation, serialized once
+ * when it is published and shared by all subscribers.
+ */
+public final class DealFeedEvent {
+
+	private final long sequence;
+	private final String json;
+
+	DealFeedEvent(long sequence, String json) {
+		this.sequence = sequence;
+		this.json = json;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public String getJson() {
+		return json;
+	}
+
+}
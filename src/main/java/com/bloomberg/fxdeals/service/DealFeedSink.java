@@ -0,0 +1,38 @@
+package com.bloomberg.fxdeals.service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The connection of one {@link DealFeed} subscriber. Methods are only called from the subscriber's own delivery
+ * thread; an exception from any of them ends the subscription.
+ */
+public interface DealFeedSink {
+
+	/**
+	 * Sends consecutive events in one write.
+	 */
+	void send(List<DealFeedEvent> events) throws IOException;
+
+	/**
+	 * Tells the subscriber that events were skipped because it fell behind, or that it resumed after an event this
+	 * feed does not know, for example one sent before a restart.
+	 *
+	 * @param dropped      The number of events skipped, or -1 if unknown.
+	 * @param nextSequence The sequence of the next event it will receive.
+	 */
+	void gap(long dropped, long nextSequence) throws IOException;
+
+	/**
+	 * Sent when nothing was delivered for a while, so that dead connections are noticed.
+	 */
+	void heartbeat() throws IOException;
+
+	/**
+	 * Closes the connection.
+	 *
+	 * @param reason Why the subscription ended, or null if the subscriber went away.
+	 */
+	void close(String reason);
+
+}
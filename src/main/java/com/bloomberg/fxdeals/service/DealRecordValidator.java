@@ -0,0 +1,101 @@
+package com.bloomberg.fxdeals.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+
+/**
+ * Applies the field rules of a deal to a {@link DealRecord} and reports the failing rule as a
+ * {@link RejectionReason}. It never touches the database, so it is safe to call from parsing threads.
+ */
+@Component
+public class DealRecordValidator {
+
+	@Autowired
+	private CurrencyService currencyService;
+
+	/**
+	 * Validates a record.
+	 *
+	 * @param record The record to validate.
+	 * @return The first rule the record breaks, or null if it is valid.
+	 */
+	public RejectionReason validate(DealRecord record) {
+		if (record == null) {
+			return RejectionReason.MALFORMED_RECORD;
+		}
+		if (record.getDealUniqueId() == null || record.getDealUniqueId().isEmpty()) {
+			return RejectionReason.MISSING_UNIQUE_ID;
+		}
+		if (!isValidCurrency(record.getFromCurrencyCode())) {
+			return RejectionReason.INVALID_FROM_CURRENCY;
+		}
+		if (!isValidCurrency(record.getToCurrencyCode())) {
+			return RejectionReason.INVALID_TO_CURRENCY;
+		}
+		if (record.getFromCurrencyCode().equals(record.getToCurrencyCode())) {
+			return RejectionReason.SAME_CURRENCY;
+		}
+		if (parseTimestamp(record.getDealTimestamp()) == null) {
+			return RejectionReason.INVALID_TIMESTAMP;
+		}
+		BigDecimal amount = parseAmount(record.getDealAmount());
+		if (amount == null) {
+			return RejectionReason.INVALID_AMOUNT;
+		}
+		if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+			return RejectionReason.NON_POSITIVE_AMOUNT;
+		}
+		return null;
+	}
+
+	private boolean isValidCurrency(String currencyCode) {
+		return currencyCode != null && !currencyCode.isEmpty() && currencyService.isValidCurrencyCode(currencyCode);
+	}
+
+	/**
+	 * Parses a deal timestamp, accepting both the JDBC format used in CSV files ({@code yyyy-MM-dd HH:mm:ss}) and
+	 * the ISO-8601 format used in JSON bodies ({@code yyyy-MM-ddTHH:mm:ss}).
+	 *
+	 * @param value The raw timestamp.
+	 * @return The timestamp, or null if the value is missing or cannot be parsed.
+	 */
+	public static Timestamp parseTimestamp(String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		try {
+			return Timestamp.valueOf(value);
+		} catch (IllegalArgumentException e) {
+			try {
+				return Timestamp.valueOf(LocalDateTime.parse(value));
+			} catch (DateTimeParseException ex) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Parses a deal amount.
+	 *
+	 * @param value The raw amount.
+	 * @return The amount, or null if the value is missing or not a number.
+	 */
+	public static BigDecimal parseAmount(String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		try {
+			return new BigDecimal(value);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+}
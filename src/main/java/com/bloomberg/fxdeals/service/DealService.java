@@ -1,23 +1,29 @@
 package com.bloomberg.fxdeals.service;
 
-import java.io.Reader;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.bloomberg.fxdeals.config.ReadWriteRoutingDataSource;
+import com.bloomberg.fxdeals.dto.DealRecord;
 import com.bloomberg.fxdeals.entity.Currency;
 import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.event.DealsSavedEvent;
 import com.bloomberg.fxdeals.repo.DealRepository;
-import com.opencsv.CSVReader;
 
 @Service
 public class DealService {
@@ -30,6 +36,12 @@ public class DealService {
 	@Autowired
 	private CurrencyService currencyService;
 
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private FxRateService fxRateService;
+
 	/**
 	 * Validates the deal, ensuring all fields are valid, currency codes are correct, and the amount is positive.
 	 * 
@@ -38,29 +50,29 @@ public class DealService {
 	 */
 	public boolean validateSingleDeal(Deal deal) {
 		if (deal.getDealUniqueId() == null || deal.getDealUniqueId().isEmpty()) {
-			logger.error("Deal validation failed: unique ID is missing");
+			logger.debug("Deal validation failed: unique ID is missing");
 			return false;
 		}
 
 		if (!validateCurrency(deal.getFromCurrency().getCurrencyCode())) {
-			logger.error("Deal validation failed: invalid from currency code");
+			logger.debug("Deal validation failed: invalid from currency code");
 			return false;
 		}
 		if (!validateCurrency(deal.getToCurrency().getCurrencyCode())) {
-			logger.error("Deal validation failed: invalid to currency code");
+			logger.debug("Deal validation failed: invalid to currency code");
 			return false;
 		}
 		if (deal.getToCurrency().getCurrencyCode().equals(deal.getFromCurrency().getCurrencyCode())) {
-			logger.warn("Invalid CSV row: 'from' currency and 'to' currency cannot be the same.");
+			logger.debug("Invalid CSV row: 'from' currency and 'to' currency cannot be the same.");
 			return false;
 		}
 		if (deal.getDealTimestamp() == null || !isValidTimestamp(deal.getDealTimestamp())) {
-			logger.error("Deal validation failed: timestamp is missing or invalid");
+			logger.debug("Deal validation failed: timestamp is missing or invalid");
 			return false;
 		}
 		if (deal.getDealAmount() == null || !isNumeric(deal.getDealAmount().toString())
 				|| deal.getDealAmount().compareTo(BigDecimal.ZERO) <= 0) {
-			logger.error("Deal validation failed: amount is missing or not positive");
+			logger.debug("Deal validation failed: amount is missing or not positive");
 			return false;
 		}
 		return true;
@@ -74,12 +86,12 @@ public class DealService {
 	 */
 	public boolean validateCurrency(String currencyCode) {
 		if (currencyCode == null || currencyCode.isEmpty()) {
-			logger.warn("Currency code is missing");
+			logger.debug("Currency code is missing");
 			return false;
 		}
 
 		if (!currencyService.isValidCurrencyCode(currencyCode)) {
-			logger.warn("Currency code {} is invalid.", currencyCode);
+			logger.debug("Currency code {} is invalid.", currencyCode);
 			return false;
 		}
 		return true;
@@ -89,7 +101,7 @@ public class DealService {
 		try {
 			return timestamp != null;
 		} catch (Exception e) {
-			logger.error("Invalid timestamp: {}", timestamp, e);
+			logger.debug("Invalid timestamp: {}", timestamp, e);
 			return false;
 		}
 	}
@@ -99,7 +111,7 @@ public class DealService {
 			new BigDecimal(str);
 			return true;
 		} catch (NumberFormatException e) {
-			logger.error("Invalid numeric value: {}", str, e);
+			logger.debug("Invalid numeric value: {}", str, e);
 			return false;
 		}
 	}
@@ -111,54 +123,14 @@ public class DealService {
 	 * @return True if the deal exists, false otherwise.
 	 */
 	public boolean isDealAlreadyExists(String dealUniqueId) {
-		Optional<Deal> existingDeal = dealRepository.findByDealUniqueId(dealUniqueId);
+		// Checked on the primary: the deal may have been saved moments ago and not be on a replica yet.
+		Optional<Deal> existingDeal = ReadWriteRoutingDataSource
+				.onPrimary(() -> dealRepository.findByDealUniqueId(dealUniqueId));
 		return existingDeal.isPresent();
 	}
 
 	/**
-	 * Saves multiple deals from a CSV file to the database, one by one, and returns the results.
-	 *
-	 * @param reader The reader for the CSV file.
-	 * @return A summary of the results, including the number of successful and failed deals.
-	 */
-	public SaveResult saveDealsFromCsv(Reader reader) {
-		int totalDeals = 0;
-		int successfulDeals = 0;
-		List<String> errors = new ArrayList<>();
-
-		try (CSVReader csvReader = new CSVReader(reader)) {
-			String[] values;
-
-			while ((values = csvReader.readNext()) != null) {
-				totalDeals++;
-				Deal deal = validateAndParseCsvRow(values);
-				if (deal != null) {
-					try {
-						saveDeal(deal);
-						successfulDeals++;
-					} catch (Exception e) {
-						logger.error("Error saving deal: {}", deal.getDealUniqueId(), e);
-						errors.add("Failed to save deal with ID " + deal.getDealUniqueId() + ": " + e.getMessage());
-					}
-				} else {
-					String errorMsg = "Invalid or duplicate deal with unique ID: " + values[0];
-					logger.warn(errorMsg);
-					errors.add(errorMsg);
-				}
-			}
-
-			logger.info("Finished processing CSV file: {} out of {} deals saved successfully.", successfulDeals, totalDeals);
-
-		} catch (Exception e) {
-			logger.error("Error processing CSV file for deals", e);
-			errors.add("General error processing CSV file: " + e.getMessage());
-		}
-
-		return new SaveResult(successfulDeals, totalDeals, errors);
-	}
-
-	/**
-	 * Saves a single deal to the database after validation.
+	 * Saves a single deal to the database after validation, together with its USD notional.
 	 *
 	 * @param deal The deal to save.
 	 * @return The saved deal entity.
@@ -166,97 +138,76 @@ public class DealService {
 	@Transactional(propagation = Propagation.REQUIRES_NEW)
 	public Deal saveDeal(Deal deal) {
 		if (isDealAlreadyExists(deal.getDealUniqueId())) {
-			logger.warn("Deal with the same unique ID already exists: {}", deal.getDealUniqueId());
+			logger.debug("Deal with the same unique ID already exists: {}", deal.getDealUniqueId());
 			throw new IllegalArgumentException("Deal with the same unique ID already exists: " + deal.getDealUniqueId());
 		}
-		return dealRepository.save(deal);
-	}
-
-	public Deal saveSingleDeal(Deal deal) {
-		if (!validateSingleDeal(deal)) {
-			logger.warn("Deal validation failed for unique ID: {}", deal.getDealUniqueId());
-			throw new IllegalArgumentException("Deal validation failed for unique ID: " + deal.getDealUniqueId());
-		}
-		return saveDeal(deal);
+		deal.setUsdNotional(fxRateService.toUsdNotional(deal));
+		Deal savedDeal = dealRepository.save(deal);
+		eventPublisher.publishEvent(new DealsSavedEvent(Collections.singletonList(savedDeal)));
+		return savedDeal;
 	}
 
 	/**
-	 * Validates and parses a single row of data from the CSV file before creating a Deal object.
+	 * Saves a batch of already validated deals in a single transaction. Deals whose unique ID already exists in the
+	 * database are skipped with one lookup for the whole batch instead of one per deal. The USD notionals of the batch
+	 * are computed from one rate snapshot.
 	 *
-	 * @param values The values from a single row in the CSV file.
-	 * @return A valid Deal object if validation passes, otherwise null.
+	 * @param deals The deals to save; unique IDs must not repeat within the batch.
+	 * @return The deals that were saved.
 	 */
-	public Deal validateAndParseCsvRow(String[] values) {
-		try {
-			if (values.length < 5) {
-				logger.warn("Invalid CSV row: incorrect number of fields.");
-				return null;
-			}
-
-			Deal deal = new Deal();
-
-			deal.setDealUniqueId(values[0]);
-			if (deal.getDealUniqueId() == null || deal.getDealUniqueId().isEmpty()) {
-				logger.warn("Invalid CSV row: deal unique ID is missing.");
-				return null;
-			}
-
-			String fromCurrencyCode = values[1];
-			if (!validateCurrency(fromCurrencyCode)) {
-				return null;
-			}
-			Currency fromCurrency = currencyService.getCurrencyByCode(fromCurrencyCode);
-
-			if (fromCurrency == null) {
-				fromCurrency = new Currency();
-				fromCurrency.setCurrencyCode(fromCurrencyCode);
-				fromCurrency = currencyService.saveCurrency(fromCurrency);
-			}
-			deal.setFromCurrency(fromCurrency);
-
-			String toCurrencyCode = values[2];
-			if (!validateCurrency(toCurrencyCode)) {
-				return null;
-			}
-			Currency toCurrency = currencyService.getCurrencyByCode(toCurrencyCode);
-			if (toCurrency == null) {
-				toCurrency = new Currency();
-				toCurrency.setCurrencyCode(toCurrencyCode);
-				toCurrency = currencyService.saveCurrency(toCurrency);
-			}
-			deal.setToCurrency(toCurrency);
-
-			if (fromCurrencyCode.equals(toCurrencyCode)) {
-				logger.warn("Invalid CSV row: 'from' currency and 'to' currency cannot be the same.");
-				return null;
-			}
+	@Transactional
+	public List<Deal> saveDealBatch(List<Deal> deals) {
+		if (deals.isEmpty()) {
+			return new ArrayList<>();
+		}
+		List<String> uniqueIds = new ArrayList<>(deals.size());
+		for (Deal deal : deals) {
+			uniqueIds.add(deal.getDealUniqueId());
+		}
+		Set<String> existing = new HashSet<>(dealRepository.findExistingDealUniqueIds(uniqueIds));
 
-			try {
-				Timestamp dealTimestamp = Timestamp.valueOf(values[3]);
-				deal.setDealTimestamp(dealTimestamp);
-			} catch (IllegalArgumentException e) {
-				logger.warn("Invalid CSV row: timestamp is invalid.", e);
-				return null;
+		List<Deal> toSave = new ArrayList<>(deals.size());
+		for (Deal deal : deals) {
+			if (!existing.contains(deal.getDealUniqueId())) {
+				toSave.add(deal);
 			}
+		}
+		fxRateService.applyUsdNotionals(toSave);
+		List<Deal> savedDeals = dealRepository.saveAll(toSave);
+		if (!savedDeals.isEmpty()) {
+			eventPublisher.publishEvent(new DealsSavedEvent(savedDeals));
+		}
+		return savedDeals;
+	}
 
-			try {
-				BigDecimal dealAmount = new BigDecimal(values[4]);
-				if (dealAmount.compareTo(BigDecimal.ZERO) <= 0) {
-					logger.warn("Invalid CSV row: deal amount must be positive.");
-					return null;
-				}
-				deal.setDealAmount(dealAmount);
-			} catch (NumberFormatException e) {
-				logger.warn("Invalid CSV row: deal amount is not a valid number.", e);
-				return null;
-			}
+	/**
+	 * Converts a validated record into a deal entity, resolving (and creating if needed) its currencies.
+	 *
+	 * @param record     A record that passed {@link DealRecordValidator#validate(DealRecord)}.
+	 * @param currencies Currencies already resolved by the caller, keyed by code; updated with any new lookups. Pass a
+	 *                   concurrent map when several threads share it.
+	 * @return The deal entity, not yet persisted.
+	 */
+	public Deal toDeal(DealRecord record, Map<String, Currency> currencies) {
+		Deal deal = new Deal();
+		deal.setDealUniqueId(record.getDealUniqueId());
+		deal.setFromCurrency(resolveCurrency(record.getFromCurrencyCode(), currencies));
+		deal.setToCurrency(resolveCurrency(record.getToCurrencyCode(), currencies));
+		deal.setDealTimestamp(DealRecordValidator.parseTimestamp(record.getDealTimestamp()));
+		deal.setDealAmount(DealRecordValidator.parseAmount(record.getDealAmount()));
+		return deal;
+	}
 
-			return deal;
+	private Currency resolveCurrency(String currencyCode, Map<String, Currency> currencies) {
+		return currencies.computeIfAbsent(currencyCode, currencyService::getOrCreateCurrency);
+	}
 
-		} catch (Exception e) {
-			logger.error("Error validating CSV row", e);
-			return null;
+	public Deal saveSingleDeal(Deal deal) {
+		if (!validateSingleDeal(deal)) {
+			logger.debug("Deal validation failed for unique ID: {}", deal.getDealUniqueId());
+			throw new IllegalArgumentException("Deal validation failed for unique ID: " + deal.getDealUniqueId());
 		}
+		return saveDeal(deal);
 	}
 
 	public static class SaveResult {
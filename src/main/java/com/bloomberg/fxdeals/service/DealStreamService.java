@@ -0,0 +1,260 @@
+package com.bloomberg.fxdeals.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+import com.bloomberg.fxdeals.entity.Currency;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Ingests newline-delimited JSON deals. Records are read one at a time with Jackson's streaming parser into
+ * {@link DealRecord}s, validated, checked for IDs repeated anywhere in the stream, persisted in batches through
+ * {@link DealBatchWriter}, and the
+ * per-line outcome of every batch is written back as NDJSON as soon as the batch is committed.
+ */
+@Service
+public class DealStreamService {
+
+	private static final Logger logger = LoggerFactory.getLogger(DealStreamService.class);
+
+	@Autowired
+	private DealBatchWriter dealBatchWriter;
+
+	@Autowired
+	private DealRecordValidator dealRecordValidator;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private IngestDiagnosticsService ingestDiagnosticsService;
+
+	@Value("${fxdeals.stream.batch-size:500}")
+	private int batchSize;
+
+	/**
+	 * Reads deals from the input until it is exhausted and writes one result line per deal to the output, followed by
+	 * a summary line. The {@code line} of a result is the input line on which the deal starts.
+	 *
+	 * @param in    The NDJSON request body.
+	 * @param out   The response body.
+	 * @param debug Whether every rejected deal of this stream should be logged in full.
+	 * @return A summary of the results; per-deal errors are only reported in the output, not in the summary.
+	 * @throws IOException If the response cannot be written.
+	 */
+	public DealService.SaveResult processStream(InputStream in, OutputStream out, boolean debug) throws IOException {
+		JsonFactory factory = objectMapper.getFactory();
+		StreamContext context = new StreamContext(ingestDiagnosticsService.start("addStream", debug));
+
+		try (JsonParser parser = factory.createParser(in);
+				JsonGenerator generator = factory.createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.setRootValueSeparator(null);
+
+			try {
+				JsonToken token;
+				while ((token = parser.nextToken()) != null) {
+					PendingLine pending = new PendingLine(parser.currentTokenLocation().getLineNr());
+					if (token == JsonToken.START_OBJECT) {
+						pending.record = readRecord(parser);
+						pending.reason = dealRecordValidator.validate(pending.record);
+						if (pending.reason == null && !context.seenIds.add(pending.record.getDealUniqueId())) {
+							pending.reason = RejectionReason.DUPLICATE_IN_INPUT;
+						}
+					} else {
+						parser.skipChildren();
+						pending.reason = RejectionReason.MALFORMED_RECORD;
+					}
+					// Counted once it is read: a record cut short by malformed JSON only gets the ABORTED line.
+					context.records++;
+					context.pending.add(pending);
+					if (context.pending.size() >= Math.max(1, batchSize)) {
+						flush(context, generator);
+					}
+				}
+				flush(context, generator);
+			} catch (JsonProcessingException e) {
+				flush(context, generator);
+				long errorLine = e.getLocation() != null ? e.getLocation().getLineNr()
+						: parser.currentLocation().getLineNr();
+				logger.warn("[import {}] Aborting deal stream at line {}: {}", context.diagnostics.getImportId(),
+						errorLine, e.getOriginalMessage());
+				context.errors.add("Malformed JSON at line " + errorLine + ": " + e.getOriginalMessage());
+				generator.writeStartObject();
+				generator.writeNumberField("line", errorLine);
+				generator.writeStringField("status", "ABORTED");
+				generator.writeStringField("error", e.getOriginalMessage());
+				generator.writeEndObject();
+				generator.writeRaw('\n');
+			}
+
+			generator.writeStartObject();
+			generator.writeNumberField("total", context.records);
+			generator.writeNumberField("saved", context.saved);
+			generator.writeNumberField("rejected", context.records - context.saved);
+			generator.writeEndObject();
+			generator.writeRaw('\n');
+			generator.flush();
+		}
+
+		context.diagnostics.finish((int) context.records, context.saved);
+		return new DealService.SaveResult(context.saved, (int) context.records, context.errors);
+	}
+
+	/**
+	 * Reads the fields of one deal object. Currencies may be given either as plain codes ({@code fromCurrencyCode})
+	 * or in the same nested shape accepted by {@code /addDeal} ({@code fromCurrency: {currencyCode: ...}}). Unknown
+	 * fields are skipped.
+	 */
+	private DealRecord readRecord(JsonParser parser) throws IOException {
+		DealRecord record = new DealRecord();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			switch (field) {
+			case "dealUniqueId":
+				record.setDealUniqueId(readScalar(parser, value));
+				break;
+			case "fromCurrencyCode":
+			case "fromCurrency":
+				record.setFromCurrencyCode(readCurrencyCode(parser, value));
+				break;
+			case "toCurrencyCode":
+			case "toCurrency":
+				record.setToCurrencyCode(readCurrencyCode(parser, value));
+				break;
+			case "dealTimestamp":
+				if (value == JsonToken.VALUE_NUMBER_INT) {
+					record.setDealTimestamp(new Timestamp(parser.getLongValue()).toString());
+				} else {
+					record.setDealTimestamp(readScalar(parser, value));
+				}
+				break;
+			case "dealAmount":
+				record.setDealAmount(readScalar(parser, value));
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+		return record;
+	}
+
+	private String readScalar(JsonParser parser, JsonToken value) throws IOException {
+		if (value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+			return parser.getText();
+		}
+		parser.skipChildren();
+		return null;
+	}
+
+	private String readCurrencyCode(JsonParser parser, JsonToken value) throws IOException {
+		if (value != JsonToken.START_OBJECT) {
+			return readScalar(parser, value);
+		}
+		String currencyCode = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken fieldValue = parser.nextToken();
+			if ("currencyCode".equals(field)) {
+				currencyCode = readScalar(parser, fieldValue);
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return currencyCode;
+	}
+
+	/**
+	 * Persists the valid records of the pending batch and writes the outcome of every pending line.
+	 */
+	private void flush(StreamContext context, JsonGenerator generator) throws IOException {
+		if (context.pending.isEmpty()) {
+			return;
+		}
+
+		List<DealRecord> records = new ArrayList<>(context.pending.size());
+		RejectionReason[] reasons = new RejectionReason[context.pending.size()];
+		for (int i = 0; i < context.pending.size(); i++) {
+			PendingLine pending = context.pending.get(i);
+			records.add(pending.record);
+			reasons[i] = pending.reason;
+			if (pending.reason != null) {
+				String dealUniqueId = pending.record != null ? pending.record.getDealUniqueId() : null;
+				context.diagnostics.reject(pending.reason, dealUniqueId);
+			}
+		}
+
+		context.saved += dealBatchWriter.write(records, reasons, context.currencies, context.diagnostics);
+
+		for (int i = 0; i < context.pending.size(); i++) {
+			PendingLine pending = context.pending.get(i);
+			pending.reason = reasons[i];
+			writeResult(generator, pending);
+		}
+		generator.flush();
+		context.pending.clear();
+	}
+
+	private void writeResult(JsonGenerator generator, PendingLine pending) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("line", pending.line);
+		if (pending.record != null && pending.record.getDealUniqueId() != null) {
+			generator.writeStringField("dealUniqueId", pending.record.getDealUniqueId());
+		}
+		if (pending.reason == null) {
+			generator.writeStringField("status", "SAVED");
+		} else {
+			generator.writeStringField("status", "REJECTED");
+			generator.writeStringField("reason", pending.reason.name());
+		}
+		generator.writeEndObject();
+		generator.writeRaw('\n');
+	}
+
+	private static class StreamContext {
+		private final IngestDiagnostics diagnostics;
+		private final List<PendingLine> pending = new ArrayList<>();
+		private final Map<String, Currency> currencies = new HashMap<>();
+		private final Set<String> seenIds = new HashSet<>();
+		private final List<String> errors = new ArrayList<>();
+		private long records;
+		private int saved;
+
+		private StreamContext(IngestDiagnostics diagnostics) {
+			this.diagnostics = diagnostics;
+		}
+	}
+
+	private static class PendingLine {
+		/** Input line on which the record starts. */
+		private final long line;
+		private DealRecord record;
+		private RejectionReason reason;
+
+		private PendingLine(long line) {
+			this.line = line;
+		}
+	}
+
+}
@@ -0,0 +1,360 @@
+package com.bloomberg.fxdeals.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+import com.bloomberg.fxdeals.entity.Currency;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVParser;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ingests CSV deal files dropped into the configured directories. Every {@code *.csv} file is claimed by an atomic
+ * rename into the {@code processing} sub-directory, read through memory-mapped regions that are parsed in parallel,
+ * validated and persisted like {@link DealBatchImportService#importCsv(java.io.Reader, boolean)}, and finally moved
+ * to {@code done} (or {@code failed} if it could not be processed) next to a {@code .result.json} sidecar.
+ * <p>
+ * Producers should write files under another extension and rename them to {@code .csv} once complete. A file left
+ * in {@code processing} by a crash is moved back at startup and ingested again; the deals saved before the crash are
+ * then rejected as already existing. Regions are split on line feeds, so a quoted field cannot span lines: such a
+ * record is rejected as malformed. A deal ID repeated anywhere in the file, even in another region, is rejected as a
+ * duplicate in the input.
+ * <p>
+ * Watching starts once the application is ready, so that no file is claimed while the context is still starting.
+ */
+@Service
+@ConditionalOnProperty(name = "fxdeals.drop-folder.enabled", havingValue = "true")
+public class DropFolderIngestionService {
+
+	private static final Logger logger = LoggerFactory.getLogger(DropFolderIngestionService.class);
+
+	private static final String PROCESSING = "processing";
+	private static final String DONE = "done";
+	private static final String FAILED = "failed";
+
+	@Autowired
+	private DealRecordValidator dealRecordValidator;
+
+	@Autowired
+	private DealBatchWriter dealBatchWriter;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private IngestDiagnosticsService ingestDiagnosticsService;
+
+	@Value("${fxdeals.drop-folder.directories:}")
+	private String[] directories;
+
+	@Value("${fxdeals.drop-folder.region-size:67108864}")
+	private long regionSize;
+
+	@Value("${fxdeals.drop-folder.batch-size:500}")
+	private int batchSize;
+
+	@Value("${fxdeals.drop-folder.parallelism:0}")
+	private int parallelism;
+
+	@Value("${fxdeals.drop-folder.max-errors:1000}")
+	private int maxErrors;
+
+	private WatchService watchService;
+	private ExecutorService regionExecutor;
+	private Thread watcherThread;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() throws IOException {
+		int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		regionExecutor = Executors.newFixedThreadPool(threads);
+		watchService = FileSystems.getDefault().newWatchService();
+
+		List<Path> watched = new ArrayList<>();
+		for (String directory : directories) {
+			if (directory.isBlank()) {
+				continue;
+			}
+			Path dir = Paths.get(directory.trim());
+			Files.createDirectories(dir.resolve(PROCESSING));
+			Files.createDirectories(dir.resolve(DONE));
+			Files.createDirectories(dir.resolve(FAILED));
+			dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+			watched.add(dir);
+		}
+
+		watcherThread = new Thread(() -> watch(watched), "drop-folder-watcher");
+		watcherThread.setDaemon(true);
+		watcherThread.start();
+		logger.info("Watching drop folders for deal files: {}", watched);
+	}
+
+	@PreDestroy
+	public void stop() throws IOException {
+		// Not started if the context failed before it was ready.
+		if (watchService != null) {
+			watchService.close();
+		}
+		if (regionExecutor != null) {
+			regionExecutor.shutdownNow();
+		}
+	}
+
+	private void watch(List<Path> watched) {
+		// Pick up files that arrived while the application was down, or whose ingestion it interrupted, before waiting
+		// for new ones.
+		for (Path dir : watched) {
+			requeueInterrupted(dir);
+			scan(dir);
+		}
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				Path dir = (Path) key.watchable();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						scan(dir);
+					} else {
+						claimAndIngest(dir, dir.resolve((Path) event.context()));
+					}
+				}
+				key.reset();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			logger.info("Stopped watching drop folders");
+		}
+	}
+
+	/**
+	 * Moves the files left in {@code processing} by a previous run back into the drop folder.
+	 */
+	private void requeueInterrupted(Path dir) {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir.resolve(PROCESSING), "*.csv")) {
+			for (Path file : files) {
+				try {
+					Files.move(file, dir.resolve(file.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+					logger.warn("Requeued deal file {} left in processing by a previous run", file.getFileName());
+				} catch (NoSuchFileException | FileAlreadyExistsException e) {
+					logger.warn("Could not requeue deal file {}: {}", file, e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			logger.error("Error requeuing interrupted deal files in {}", dir, e);
+		}
+	}
+
+	private void scan(Path dir) {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.csv")) {
+			for (Path file : files) {
+				claimAndIngest(dir, file);
+			}
+		} catch (IOException e) {
+			logger.error("Error scanning drop folder {}", dir, e);
+		}
+	}
+
+	private void claimAndIngest(Path dir, Path file) {
+		if (!file.getFileName().toString().endsWith(".csv") || !Files.isRegularFile(file)) {
+			return;
+		}
+
+		Path claimed = dir.resolve(PROCESSING).resolve(file.getFileName());
+		try {
+			Files.move(file, claimed, StandardCopyOption.ATOMIC_MOVE);
+		} catch (NoSuchFileException | FileAlreadyExistsException e) {
+			// Another instance watching the same directory claimed it first.
+			return;
+		} catch (AtomicMoveNotSupportedException e) {
+			logger.error("Drop folder {} does not support atomic renames; file {} left in place", dir, file);
+			return;
+		} catch (IOException e) {
+			logger.error("Error claiming deal file {}", file, e);
+			return;
+		}
+
+		String outcome = DONE;
+		Map<String, Object> result;
+		try {
+			result = ingest(claimed);
+		} catch (Exception e) {
+			logger.error("Error processing deal file {}", claimed, e);
+			outcome = FAILED;
+			result = new LinkedHashMap<>();
+			result.put("file", file.getFileName().toString());
+			result.put("error", e.getMessage());
+		}
+
+		Path target = dir.resolve(outcome).resolve(file.getFileName());
+		try {
+			objectMapper.writerWithDefaultPrettyPrinter()
+					.writeValue(dir.resolve(outcome).resolve(file.getFileName() + ".result.json").toFile(), result);
+			Files.move(claimed, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			logger.error("Error moving deal file {} to {}", claimed, target, e);
+		}
+	}
+
+	/**
+	 * Ingests one claimed file, processing its memory-mapped regions in parallel. Files named {@code *.debug.csv}
+	 * have every rejected deal logged in full.
+	 *
+	 * @param file The claimed file.
+	 * @return The result written to the sidecar.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	private Map<String, Object> ingest(Path file) throws IOException {
+		long started = System.nanoTime();
+		String fileName = file.getFileName().toString();
+		IngestDiagnostics diagnostics = ingestDiagnosticsService.start(fileName, fileName.endsWith(".debug.csv"));
+		FileTotals totals = new FileTotals(maxErrors);
+		// Shared by the regions, which run in parallel: see DealService#toDeal.
+		Map<String, Currency> currencies = new ConcurrentHashMap<>();
+		// The deal IDs seen so far in the whole file, so that a duplicate is caught even across regions.
+		Set<String> seenIds = ConcurrentHashMap.newKeySet();
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			List<CompletableFuture<FileTotals>> regions = new ArrayList<>();
+			for (ByteBuffer region : MappedFileRegions.map(channel, regionSize)) {
+				regions.add(CompletableFuture.supplyAsync(() -> ingestRegion(region, seenIds, currencies,
+						diagnostics), regionExecutor));
+			}
+			for (CompletableFuture<FileTotals> region : regions) {
+				totals.merge(region.join());
+			}
+		}
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("file", fileName);
+		result.put("importId", diagnostics.getImportId());
+		result.put("totalDeals", totals.totalDeals);
+		result.put("successfulDeals", totals.successfulDeals);
+		result.put("rejectionCounts", diagnostics.getRejectionCounts());
+		result.put("errors", totals.errors);
+		result.put("durationMillis", (System.nanoTime() - started) / 1_000_000);
+		diagnostics.finish(totals.totalDeals, totals.successfulDeals);
+		return result;
+	}
+
+	private FileTotals ingestRegion(ByteBuffer region, Set<String> seenIds, Map<String, Currency> currencies,
+			IngestDiagnostics diagnostics) {
+		FileTotals totals = new FileTotals(maxErrors);
+		CSVParser csvParser = new CSVParser();
+		List<DealRecord> records = new ArrayList<>(batchSize);
+		List<String[]> rows = new ArrayList<>(batchSize);
+
+		try {
+			MappedFileRegions.forEachLine(region, line -> {
+				String[] values;
+				try {
+					values = csvParser.parseLine(line);
+				} catch (IOException e) {
+					// An unterminated quote, typically a quoted field with a line break; rejected as malformed.
+					values = new String[0];
+				}
+				rows.add(values);
+				records.add(DealRecord.fromCsvRow(values));
+				if (records.size() >= Math.max(1, batchSize)) {
+					writeBatch(records, rows, seenIds, currencies, totals, diagnostics);
+				}
+			});
+			writeBatch(records, rows, seenIds, currencies, totals, diagnostics);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error parsing deal file region: " + e.getMessage(), e);
+		}
+		return totals;
+	}
+
+	private void writeBatch(List<DealRecord> records, List<String[]> rows, Set<String> seenIds,
+			Map<String, Currency> currencies, FileTotals totals, IngestDiagnostics diagnostics) {
+		if (records.isEmpty()) {
+			return;
+		}
+		RejectionReason[] reasons = new RejectionReason[records.size()];
+		for (int i = 0; i < records.size(); i++) {
+			reasons[i] = dealRecordValidator.validate(records.get(i));
+			if (reasons[i] == null && !seenIds.add(records.get(i).getDealUniqueId())) {
+				reasons[i] = RejectionReason.DUPLICATE_IN_INPUT;
+			}
+			if (reasons[i] != null) {
+				diagnostics.reject(reasons[i], rows.get(i).length > 0 ? rows.get(i)[0] : null);
+			}
+		}
+
+		totals.totalDeals += records.size();
+		totals.successfulDeals += dealBatchWriter.write(records, reasons, currencies, diagnostics);
+		for (int i = 0; i < reasons.length; i++) {
+			if (reasons[i] != null) {
+				totals.reject(reasons[i], rows.get(i));
+			}
+		}
+		records.clear();
+		rows.clear();
+	}
+
+	private static class FileTotals {
+		private final List<String> errors = new ArrayList<>();
+		private final int maxErrors;
+		private int totalDeals;
+		private int successfulDeals;
+
+		private FileTotals(int maxErrors) {
+			this.maxErrors = maxErrors;
+		}
+
+		private void reject(RejectionReason reason, String[] values) {
+			if (errors.size() < maxErrors) {
+				String id = values.length > 0 ? values[0] : "";
+				errors.add(reason.getDescription() + ": " + id);
+			}
+		}
+
+		private void merge(FileTotals other) {
+			totalDeals += other.totalDeals;
+			successfulDeals += other.successfulDeals;
+			for (String error : other.errors) {
+				if (errors.size() >= maxErrors) {
+					break;
+				}
+				errors.add(error);
+			}
+		}
+	}
+
+}
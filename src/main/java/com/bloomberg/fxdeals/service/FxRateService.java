@@ -0,0 +1,215 @@
+package com.bloomberg.fxdeals.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.entity.FxRate;
+import com.bloomberg.fxdeals.repo.FxRateRepository;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the current {@link FxRateSnapshot} and computes the USD notional of deals at ingest. Rates are loaded from
+ * the file {@code fxdeals.rates.file} when it is set, otherwise from the {@code fx_rate} table, and reloaded every
+ * {@code fxdeals.rates.refresh-interval-ms}. A reload builds a new snapshot and swaps it in with a single volatile
+ * write, so conversions never lock and never go to the database.
+ * <p>
+ * The first load is a background warm-up; deals converted before it succeeded find no rates and get no USD notional.
+ * Until a load has succeeded, the refresher retries every {@code fxdeals.rates.retry-interval-ms} instead.
+ */
+@Service
+public class FxRateService implements BackgroundWarmup {
+
+	private static final Logger logger = LoggerFactory.getLogger(FxRateService.class);
+
+	public static final String USD = "USD";
+	public static final int NOTIONAL_SCALE = 2;
+
+	/**
+	 * Integer digits of the {@code usd_notional} column, {@code NUMERIC(20, 2)}.
+	 */
+	public static final int NOTIONAL_INTEGER_DIGITS = 18;
+
+	@Autowired
+	private FxRateRepository fxRateRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${fxdeals.rates.file:}")
+	private String ratesFile;
+
+	@Value("${fxdeals.rates.pivot-currencies:USD,EUR}")
+	private String[] pivotCurrencies;
+
+	@Value("${fxdeals.rates.refresh-interval-ms:300000}")
+	private long refreshIntervalMs;
+
+	@Value("${fxdeals.rates.retry-interval-ms:10000}")
+	private long retryIntervalMs;
+
+	private volatile FxRateSnapshot snapshot = FxRateSnapshot.empty();
+	private volatile boolean ratesLoaded;
+	private ScheduledExecutorService refresher;
+
+	@Override
+	public void warmUp() {
+		refresh();
+		refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "fx-rate-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduleRefresh();
+	}
+
+	private void scheduleRefresh() {
+		long delay = ratesLoaded ? refreshIntervalMs : retryIntervalMs;
+		if (delay > 0) {
+			refresher.schedule(() -> {
+				refresh();
+				scheduleRefresh();
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (refresher != null) {
+			refresher.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the current snapshot without loading anything; it is empty until the first load has succeeded.
+	 *
+	 * @return The current snapshot.
+	 */
+	public FxRateSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Reloads the rates and swaps in the new snapshot. If loading fails the current snapshot is kept.
+	 *
+	 * @return The snapshot in use after the refresh.
+	 */
+	public synchronized FxRateSnapshot refresh() {
+		try {
+			FxRateSnapshot loaded = ratesFile == null || ratesFile.isBlank() ? loadFromTable()
+					: loadFromFile(Path.of(ratesFile));
+			snapshot = loaded;
+			ratesLoaded = true;
+			logger.info("Loaded {} FX rates from {}", loaded.size(), loaded.getSource());
+		} catch (Exception e) {
+			logger.warn("Could not refresh FX rates, keeping the {} rates loaded from {} at {}: {}", snapshot.size(),
+					snapshot.getSource(), snapshot.getLoadedAt(), e.getMessage());
+		}
+		return snapshot;
+	}
+
+	private FxRateSnapshot loadFromTable() {
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		Map<String, BigDecimal> quotes = readOnly.execute(status -> {
+			Map<String, BigDecimal> rates = new HashMap<>();
+			for (FxRate rate : fxRateRepository.findAll()) {
+				rates.put(FxRateSnapshot.pair(rate.getBaseCurrency(), rate.getQuoteCurrency()), rate.getRate());
+			}
+			return rates;
+		});
+		return new FxRateSnapshot(quotes, pivots(), "table fx_rate");
+	}
+
+	/**
+	 * Reads a CSV file of {@code baseCurrency,quoteCurrency,rate} lines. Empty lines, lines starting with {@code #}
+	 * and a header line are skipped.
+	 */
+	private FxRateSnapshot loadFromFile(Path file) throws IOException {
+		Map<String, BigDecimal> quotes = new HashMap<>();
+		try (CSVReader csvReader = new CSVReader(Files.newBufferedReader(file))) {
+			String[] values;
+			while ((values = csvReader.readNext()) != null) {
+				if (values.length < 3 || values[0].isBlank() || values[0].startsWith("#")) {
+					continue;
+				}
+				BigDecimal rate = DealRecordValidator.parseAmount(values[2].trim());
+				if (rate == null) {
+					if (csvReader.getLinesRead() == 1) {
+						continue;
+					}
+					throw new IOException("Invalid rate on line " + csvReader.getLinesRead() + " of " + file);
+				}
+				quotes.put(FxRateSnapshot.pair(values[0].trim(), values[1].trim()), rate);
+			}
+		} catch (CsvValidationException e) {
+			throw new IOException("Invalid rates file " + file, e);
+		}
+		return new FxRateSnapshot(quotes, pivots(), "file " + file);
+	}
+
+	private List<String> pivots() {
+		return Arrays.stream(pivotCurrencies).map(String::trim).filter(pivot -> !pivot.isEmpty()).toList();
+	}
+
+	/**
+	 * Computes the USD notional of a deal with the current snapshot.
+	 *
+	 * @param deal The deal; its amount is in its from currency.
+	 * @return The notional, or null if the deal is incomplete, no rate to USD is known or the notional does not fit
+	 *         the {@code usd_notional} column.
+	 */
+	public BigDecimal toUsdNotional(Deal deal) {
+		return toUsdNotional(deal, getSnapshot());
+	}
+
+	/**
+	 * Sets the USD notional of every deal, all converted with the same snapshot.
+	 *
+	 * @param deals The deals to update.
+	 */
+	public void applyUsdNotionals(List<Deal> deals) {
+		FxRateSnapshot rates = getSnapshot();
+		for (Deal deal : deals) {
+			deal.setUsdNotional(toUsdNotional(deal, rates));
+		}
+	}
+
+	private BigDecimal toUsdNotional(Deal deal, FxRateSnapshot rates) {
+		if (deal.getDealAmount() == null || deal.getFromCurrency() == null
+				|| deal.getFromCurrency().getCurrencyCode() == null) {
+			return null;
+		}
+		BigDecimal notional = rates.convert(deal.getDealAmount(), deal.getFromCurrency().getCurrencyCode(), USD,
+				NOTIONAL_SCALE);
+		if (notional == null) {
+			logger.debug("No {} rate for deal {}", deal.getFromCurrency().getCurrencyCode(), deal.getDealUniqueId());
+		} else if (notional.precision() - notional.scale() > NOTIONAL_INTEGER_DIGITS) {
+			// Stored without a notional rather than failing the insert, and with it the whole batch.
+			logger.warn("USD notional {} of deal {} is too large to store", notional, deal.getDealUniqueId());
+			return null;
+		}
+		return notional;
+	}
+
+}
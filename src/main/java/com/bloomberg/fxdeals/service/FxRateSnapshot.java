@@ -0,0 +1,146 @@
+package com.bloomberg.fxdeals.service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable set of quoted FX rates as loaded at one point in time. Rates that are not quoted directly are derived,
+ * either by inverting the opposite quote or by crossing through one of the pivot currencies, and cached in the
+ * snapshot; a refresh replaces the whole snapshot, and with it the cache.
+ */
+public final class FxRateSnapshot {
+
+	static final MathContext PRECISION = MathContext.DECIMAL64;
+
+	private final Map<String, BigDecimal> quotes;
+	private final List<String> pivotCurrencies;
+	private final String source;
+	private final Instant loadedAt = Instant.now();
+	private final Map<String, Optional<BigDecimal>> derivedRates = new ConcurrentHashMap<>();
+
+	/**
+	 * @param quotes          Quoted rates keyed by {@link #pair(String, String)}.
+	 * @param pivotCurrencies Currencies to cross through when a pair is not quoted, in order of preference.
+	 * @param source          Where the rates were loaded from.
+	 */
+	public FxRateSnapshot(Map<String, BigDecimal> quotes, List<String> pivotCurrencies, String source) {
+		this.quotes = Map.copyOf(quotes);
+		this.pivotCurrencies = List.copyOf(pivotCurrencies);
+		this.source = source;
+	}
+
+	public static FxRateSnapshot empty() {
+		return new FxRateSnapshot(Map.of(), List.of(), "none");
+	}
+
+	public static String pair(String baseCurrency, String quoteCurrency) {
+		return baseCurrency + quoteCurrency;
+	}
+
+	/**
+	 * The rate to convert from one currency into another.
+	 *
+	 * @param from The currency converted from.
+	 * @param to   The currency converted to.
+	 * @return How many units of {@code to} one unit of {@code from} is worth, or null if it cannot be derived.
+	 */
+	public BigDecimal rate(String from, String to) {
+		if (from.equals(to)) {
+			return BigDecimal.ONE;
+		}
+		String pair = pair(from, to);
+		BigDecimal quoted = quotes.get(pair);
+		if (quoted != null) {
+			return quoted;
+		}
+		Optional<BigDecimal> derived = derivedRates.get(pair);
+		if (derived == null) {
+			derived = Optional.ofNullable(derive(from, to));
+			derivedRates.putIfAbsent(pair, derived);
+		}
+		return derived.orElse(null);
+	}
+
+	/**
+	 * Converts an amount into another currency.
+	 *
+	 * @param amount The amount to convert.
+	 * @param from   The currency of the amount.
+	 * @param to     The currency to convert to.
+	 * @param scale  The scale to round the converted amount to.
+	 * @return The converted amount, or null if the rate is not known.
+	 */
+	public BigDecimal convert(BigDecimal amount, String from, String to, int scale) {
+		BigDecimal rate = rate(from, to);
+		if (rate == null) {
+			return null;
+		}
+		return amount.multiply(rate, PRECISION).setScale(scale, PRECISION.getRoundingMode());
+	}
+
+	private BigDecimal derive(String from, String to) {
+		BigDecimal direct = quotedOrInverse(from, to);
+		if (direct != null) {
+			return direct;
+		}
+		for (String pivot : pivotCurrencies) {
+			BigDecimal fromLeg = toPivot(from, pivot);
+			BigDecimal toLeg = toPivot(to, pivot);
+			if (fromLeg != null && toLeg != null && toLeg.signum() != 0) {
+				return fromLeg.divide(toLeg, PRECISION);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The rate from a currency into a pivot currency: quoted, inverted, or crossed through one of the other pivots.
+	 */
+	private BigDecimal toPivot(String currency, String pivot) {
+		if (currency.equals(pivot)) {
+			return BigDecimal.ONE;
+		}
+		BigDecimal rate = quotedOrInverse(currency, pivot);
+		if (rate != null) {
+			return rate;
+		}
+		for (String other : pivotCurrencies) {
+			if (other.equals(pivot) || other.equals(currency)) {
+				continue;
+			}
+			BigDecimal leg = quotedOrInverse(currency, other);
+			BigDecimal pivotLeg = quotedOrInverse(other, pivot);
+			if (leg != null && pivotLeg != null) {
+				return leg.multiply(pivotLeg, PRECISION);
+			}
+		}
+		return null;
+	}
+
+	private BigDecimal quotedOrInverse(String from, String to) {
+		BigDecimal quoted = quotes.get(pair(from, to));
+		if (quoted != null) {
+			return quoted;
+		}
+		BigDecimal inverse = quotes.get(pair(to, from));
+		return inverse != null && inverse.signum() != 0 ? BigDecimal.ONE.divide(inverse, PRECISION) : null;
+	}
+
+	public int size() {
+		return quotes.size();
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public Instant getLoadedAt() {
+		return loadedAt;
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.bloomberg.fxdeals.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Diagnostics of a single import. Rejections are aggregated into per-reason counters instead of being logged one
+ * by one; only a few exemplars per reason are logged, rate limited, and a single summary event is written when the
+ * import finishes. With debug enabled every rejection of this import is logged with its full detail.
+ * <p>
+ * Instances are created by {@link IngestDiagnosticsService#start(String, boolean)} and are safe to share between the
+ * worker threads of an import.
+ */
+public class IngestDiagnostics {
+
+	private static final Logger logger = LoggerFactory.getLogger(IngestDiagnostics.class);
+	private static final Logger summaryLogger = LoggerFactory.getLogger("fxdeals.ingest.summary");
+
+	private final String importId;
+	private final String source;
+	private final boolean debug;
+	private final int exemplarsPerReason;
+	private final long exemplarIntervalNanos;
+	private final long startedNanos = System.nanoTime();
+	private final Map<RejectionReason, LongAdder> rejectionCounts = new EnumMap<>(RejectionReason.class);
+	private final Map<RejectionReason, AtomicLong> exemplarsLogged = new EnumMap<>(RejectionReason.class);
+	private final Map<RejectionReason, AtomicLong> nextExemplarNanos = new EnumMap<>(RejectionReason.class);
+
+	IngestDiagnostics(String importId, String source, boolean debug, int exemplarsPerReason,
+			long exemplarIntervalNanos) {
+		this.importId = importId;
+		this.source = source;
+		this.debug = debug;
+		this.exemplarsPerReason = exemplarsPerReason;
+		this.exemplarIntervalNanos = exemplarIntervalNanos;
+		// Populated up front so that the maps are only read concurrently, never modified.
+		for (RejectionReason reason : RejectionReason.values()) {
+			rejectionCounts.put(reason, new LongAdder());
+			exemplarsLogged.put(reason, new AtomicLong());
+			nextExemplarNanos.put(reason, new AtomicLong(startedNanos + exemplarIntervalNanos));
+		}
+	}
+
+	public String getImportId() {
+		return importId;
+	}
+
+	public boolean isDebug() {
+		return debug;
+	}
+
+	/**
+	 * Records a rejected deal.
+	 *
+	 * @param reason       Why the deal was rejected.
+	 * @param dealUniqueId The unique ID of the deal, if known.
+	 * @return True if the rejection was logged, false if it was only counted.
+	 */
+	public boolean reject(RejectionReason reason, String dealUniqueId) {
+		return reject(reason, dealUniqueId, null);
+	}
+
+	/**
+	 * Records a rejected deal together with the error that caused it.
+	 *
+	 * @param reason       Why the deal was rejected.
+	 * @param dealUniqueId The unique ID of the deal, if known.
+	 * @param cause        The error that caused the rejection, or null.
+	 * @return True if the rejection was logged, false if it was only counted.
+	 */
+	public boolean reject(RejectionReason reason, String dealUniqueId, Throwable cause) {
+		rejectionCounts.get(reason).increment();
+
+		if (debug) {
+			logger.info("[import {}] Deal {} rejected: {}", importId, dealUniqueId, reason, cause);
+			return true;
+		}
+		if (!takeExemplar(reason)) {
+			return false;
+		}
+		if (cause != null) {
+			logger.warn("[import {}] Deal {} rejected: {} ({}) (sampled, see the import summary for totals)", importId,
+					dealUniqueId, reason, cause.getMessage());
+		} else {
+			logger.warn("[import {}] Deal {} rejected: {} (sampled, see the import summary for totals)", importId,
+					dealUniqueId, reason);
+		}
+		return true;
+	}
+
+	/**
+	 * The first exemplars of every reason are always logged; after that at most one per interval.
+	 */
+	private boolean takeExemplar(RejectionReason reason) {
+		if (exemplarsLogged.get(reason).incrementAndGet() <= exemplarsPerReason) {
+			return true;
+		}
+		AtomicLong next = nextExemplarNanos.get(reason);
+		long now = System.nanoTime();
+		long allowedAt = next.get();
+		return now - allowedAt >= 0 && next.compareAndSet(allowedAt, now + exemplarIntervalNanos);
+	}
+
+	/**
+	 * Number of rejections per reason recorded so far; reasons that never occurred are left out.
+	 */
+	public Map<RejectionReason, Long> getRejectionCounts() {
+		Map<RejectionReason, Long> counts = new EnumMap<>(RejectionReason.class);
+		rejectionCounts.forEach((reason, count) -> {
+			long value = count.sum();
+			if (value > 0) {
+				counts.put(reason, value);
+			}
+		});
+		return counts;
+	}
+
+	/**
+	 * Writes the summary event of the import. Call once, when the import is finished.
+	 *
+	 * @param totalDeals      The number of deals read.
+	 * @param successfulDeals The number of deals saved (or, for a dry run, that would have been saved).
+	 */
+	public void finish(int totalDeals, int successfulDeals) {
+		long durationMillis = (System.nanoTime() - startedNanos) / 1_000_000;
+		Map<RejectionReason, Long> counts = getRejectionCounts();
+		summaryLogger.atInfo()
+				.addKeyValue("importId", importId)
+				.addKeyValue("source", source)
+				.addKeyValue("totalDeals", totalDeals)
+				.addKeyValue("successfulDeals", successfulDeals)
+				.addKeyValue("rejectedDeals", totalDeals - successfulDeals)
+				.addKeyValue("rejectionCounts", counts)
+				.addKeyValue("durationMillis", durationMillis)
+				.log("importId={} source={} totalDeals={} successfulDeals={} rejectedDeals={} rejectionCounts={} "
+						+ "durationMillis={}", importId, source, totalDeals, successfulDeals, totalDeals - successfulDeals,
+						counts, durationMillis);
+	}
+
+}
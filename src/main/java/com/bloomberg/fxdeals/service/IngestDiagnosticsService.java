@@ -0,0 +1,33 @@
+package com.bloomberg.fxdeals.service;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates the {@link IngestDiagnostics} of every import with the configured exemplar rate limit.
+ */
+@Service
+public class IngestDiagnosticsService {
+
+	@Value("${fxdeals.diagnostics.exemplars-per-reason:3}")
+	private int exemplarsPerReason;
+
+	@Value("${fxdeals.diagnostics.exemplar-interval-ms:10000}")
+	private long exemplarIntervalMs;
+
+	/**
+	 * Starts the diagnostics of a new import.
+	 *
+	 * @param source Where the deals come from, e.g. the endpoint or the file name.
+	 * @param debug  Whether every rejection of this import should be logged in full.
+	 * @return The diagnostics of the import.
+	 */
+	public IngestDiagnostics start(String source, boolean debug) {
+		return new IngestDiagnostics(UUID.randomUUID().toString(), source, debug, exemplarsPerReason,
+				TimeUnit.MILLISECONDS.toNanos(exemplarIntervalMs));
+	}
+
+}
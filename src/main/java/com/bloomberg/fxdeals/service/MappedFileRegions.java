@@ -0,0 +1,86 @@
+package com.bloomberg.fxdeals.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a text file into memory-mapped regions that each end on a line boundary, so that the regions can be parsed
+ * independently and in parallel straight from the page cache.
+ */
+public final class MappedFileRegions {
+
+	private MappedFileRegions() {
+	}
+
+	/**
+	 * Maps a file as read-only regions of at most {@code regionSize} bytes, each cut after the last line feed it
+	 * contains. The last region ends at the end of the file.
+	 *
+	 * @param channel    The file to map.
+	 * @param regionSize The maximum size of a region in bytes.
+	 * @return The regions, in file order.
+	 * @throws IOException If the file cannot be mapped or a single line is longer than a region.
+	 */
+	public static List<ByteBuffer> map(FileChannel channel, long regionSize) throws IOException {
+		long size = channel.size();
+		long maxRegion = Math.max(1, Math.min(regionSize, Integer.MAX_VALUE));
+		List<ByteBuffer> regions = new ArrayList<>();
+
+		long start = 0;
+		while (start < size) {
+			int length = (int) Math.min(maxRegion, size - start);
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+			if (start + length < size) {
+				int end = length;
+				while (end > 0 && mapped.get(end - 1) != '\n') {
+					end--;
+				}
+				if (end == 0) {
+					throw new IOException("Line at offset " + start + " is longer than the region size of " + maxRegion
+							+ " bytes");
+				}
+				length = end;
+			}
+			regions.add(mapped.slice(0, length));
+			start += length;
+		}
+		return regions;
+	}
+
+	/**
+	 * Calls the handler for every non-empty line of a region, without the trailing line feed or carriage return.
+	 *
+	 * @param region  A region returned by {@link #map(FileChannel, long)}.
+	 * @param handler The line handler.
+	 * @throws IOException If the handler fails.
+	 */
+	public static void forEachLine(ByteBuffer region, LineHandler handler) throws IOException {
+		int limit = region.limit();
+		int lineStart = 0;
+		for (int i = 0; i <= limit; i++) {
+			if (i == limit || region.get(i) == '\n') {
+				int lineEnd = i;
+				if (lineEnd > lineStart && region.get(lineEnd - 1) == '\r') {
+					lineEnd--;
+				}
+				if (lineEnd > lineStart) {
+					byte[] bytes = new byte[lineEnd - lineStart];
+					region.get(lineStart, bytes);
+					handler.handle(new String(bytes, StandardCharsets.UTF_8));
+				}
+				lineStart = i + 1;
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface LineHandler {
+		void handle(String line) throws IOException;
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.bloomberg.fxdeals.service;
+
+/**
+ * Reason codes reported for deals that were not persisted.
+ */
+public enum RejectionReason {
+
+	MALFORMED_RECORD("Record is malformed or has missing fields"),
+	MISSING_UNIQUE_ID("Deal unique ID is missing"),
+	INVALID_FROM_CURRENCY("'from' currency code is missing or not a valid ISO 4217 code"),
+	INVALID_TO_CURRENCY("'to' currency code is missing or not a valid ISO 4217 code"),
+	SAME_CURRENCY("'from' currency and 'to' currency cannot be the same"),
+	INVALID_TIMESTAMP("Timestamp is missing or invalid"),
+	INVALID_AMOUNT("Amount is missing or not a valid number"),
+	NON_POSITIVE_AMOUNT("Amount must be positive"),
+	DUPLICATE_IN_INPUT("Deal unique ID appears more than once in the same input"),
+	ALREADY_EXISTS("Deal with the same unique ID already exists"),
+	SAVE_FAILED("Deal could not be saved");
+
+	private final String description;
+
+	RejectionReason(String description) {
+		this.description = description;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.bloomberg.fxdeals.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.bloomberg.fxdeals.event.DealsSavedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Records how long after JVM start the first deal was committed, the figure the fast-start mode is tuned for. It is
+ * logged once and exported as the {@code fxdeals.startup.first.deal} gauge.
+ */
+@Component
+public class StartupTimings {
+
+	private static final Logger logger = LoggerFactory.getLogger(StartupTimings.class);
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final AtomicBoolean firstDealSaved = new AtomicBoolean();
+	private volatile long firstDealMillis = -1;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry != null) {
+			Gauge.builder("fxdeals.startup.first.deal", this, StartupTimings::getFirstDealMillis)
+					.baseUnit("milliseconds")
+					.description("Time from JVM start to the first committed deal, -1 until then")
+					.register(meterRegistry);
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onDealsSaved(DealsSavedEvent event) {
+		if (!firstDealSaved.get() && firstDealSaved.compareAndSet(false, true)) {
+			firstDealMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+			logger.info("First deal committed {} ms after JVM start", firstDealMillis);
+		}
+	}
+
+	public long getFirstDealMillis() {
+		return firstDealMillis;
+	}
+
+}
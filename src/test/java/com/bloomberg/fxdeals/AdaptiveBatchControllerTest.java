@@ -0,0 +1,100 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bloomberg.fxdeals.service.AdaptiveBatchController;
+
+class AdaptiveBatchControllerTest {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(1000);
+
+	private AdaptiveBatchController controller;
+
+	@BeforeEach
+	void setUp() {
+		controller = new AdaptiveBatchController();
+		ReflectionTestUtils.setField(controller, "minBatchSize", 100);
+		ReflectionTestUtils.setField(controller, "maxBatchSize", 400);
+		ReflectionTestUtils.setField(controller, "initialBatchSize", 200);
+		ReflectionTestUtils.setField(controller, "batchSizeStep", 100);
+		ReflectionTestUtils.setField(controller, "minWriters", 1);
+		ReflectionTestUtils.setField(controller, "maxWriters", 4);
+		ReflectionTestUtils.setField(controller, "targetLatencyMs", 250L);
+		ReflectionTestUtils.setField(controller, "maxErrorRate", 0.05);
+		ReflectionTestUtils.setField(controller, "decreaseFactor", 0.5);
+		controller.init();
+	}
+
+	@Test
+	void recordFlush_fastFlushes_shouldGrowBatchSizeThenWriters() {
+		controller.recordFlush(200, FAST, 0);
+		assertEquals(300, controller.getBatchSize());
+		assertEquals(1, controller.getWriters());
+
+		controller.recordFlush(300, FAST, 0);
+		assertEquals(400, controller.getBatchSize());
+		assertEquals(2, controller.getWriters());
+
+		controller.recordFlush(400, FAST, 0);
+		controller.recordFlush(400, FAST, 0);
+		assertEquals(400, controller.getBatchSize());
+		assertEquals(3, controller.getWriters());
+	}
+
+	@Test
+	void recordFlush_slowFlush_shouldHalveBatchSizeAndWriters() {
+		controller.recordFlush(200, FAST, 0);
+		controller.recordFlush(300, FAST, 0);
+		controller.recordFlush(400, FAST, 0);
+		controller.recordFlush(400, FAST, 0);
+		assertEquals(3, controller.getWriters());
+
+		controller.recordFlush(400, SLOW, 0);
+		assertEquals(200, controller.getBatchSize());
+		assertEquals(1, controller.getWriters());
+	}
+
+	@Test
+	void recordFlush_highErrorRate_shouldDecreaseWithinBounds() {
+		controller.recordFlush(200, FAST, 50);
+		assertEquals(100, controller.getBatchSize());
+		assertEquals(1, controller.getWriters());
+
+		controller.recordFlush(100, FAST, 50);
+		assertEquals(100, controller.getBatchSize());
+		assertEquals(1, controller.getWriters());
+	}
+
+	@Test
+	void recordFlush_withoutCommitLatency_shouldOnlyCountErrors() {
+		controller.recordFlush(200, -1, 0);
+		assertEquals(300, controller.getBatchSize());
+
+		controller.recordFlush(300, -1, 300);
+		assertEquals(150, controller.getBatchSize());
+		assertEquals(1, controller.getWriters());
+	}
+
+	@Test
+	void recordFlush_congestionWhileFlushesInFlight_shouldDecreaseOncePerRound() {
+		ReflectionTestUtils.setField(controller, "initialBatchSize", 400);
+		ReflectionTestUtils.setField(controller, "minWriters", 4);
+		controller.init();
+
+		controller.recordFlush(400, SLOW, 0);
+		controller.recordFlush(400, SLOW, 0);
+		controller.recordFlush(400, SLOW, 0);
+		assertEquals(400, controller.getBatchSize());
+
+		controller.recordFlush(400, SLOW, 0);
+		assertEquals(200, controller.getBatchSize());
+		assertEquals(4, controller.getWriters());
+	}
+}
@@ -0,0 +1,54 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bloomberg.fxdeals.service.BackgroundWarmup;
+import com.bloomberg.fxdeals.service.BackgroundWarmupRunner;
+
+class BackgroundWarmupRunnerTest {
+
+	@Test
+	void start_slowWarmup_shouldNotHoldBackTheOthers() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch slowDone = new CountDownLatch(1);
+		CountDownLatch fastDone = new CountDownLatch(1);
+		BackgroundWarmup slow = () -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			slowDone.countDown();
+		};
+		BackgroundWarmup fast = fastDone::countDown;
+		BackgroundWarmupRunner runner = new BackgroundWarmupRunner();
+		ReflectionTestUtils.setField(runner, "warmups", List.of(slow, fast));
+
+		runner.start();
+
+		assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+		release.countDown();
+		assertTrue(slowDone.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void start_failingWarmup_shouldNotStopTheOthers() throws Exception {
+		CountDownLatch done = new CountDownLatch(1);
+		BackgroundWarmup failing = () -> {
+			throw new IllegalStateException("relation \"fx_rate\" does not exist");
+		};
+		BackgroundWarmupRunner runner = new BackgroundWarmupRunner();
+		ReflectionTestUtils.setField(runner, "warmups", List.of(failing, done::countDown));
+
+		runner.start();
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,63 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.bloomberg.fxdeals.entity.Currency;
+import com.bloomberg.fxdeals.repo.CurrencyRepository;
+import com.bloomberg.fxdeals.service.CurrencyService;
+
+class CurrencyServiceTest {
+
+	@Mock
+	private CurrencyRepository currencyRepository;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@InjectMocks
+	private CurrencyService currencyService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@Test
+	void getOrCreateCurrency_existingCurrency_shouldNotInsert() {
+		Currency chf = currency("CHF");
+		when(currencyRepository.findByCurrencyCode("CHF")).thenReturn(Optional.of(chf));
+
+		assertSame(chf, currencyService.getOrCreateCurrency("CHF"));
+		verify(currencyRepository, never()).saveAndFlush(any(Currency.class));
+	}
+
+	@Test
+	void getOrCreateCurrency_createdConcurrently_shouldReturnTheOtherInsert() {
+		Currency chf = currency("CHF");
+		when(currencyRepository.findByCurrencyCode("CHF")).thenReturn(Optional.empty(), Optional.of(chf));
+		when(currencyRepository.saveAndFlush(any(Currency.class)))
+				.thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+
+		assertSame(chf, currencyService.getOrCreateCurrency("CHF"));
+	}
+
+	private static Currency currency(String code) {
+		Currency currency = new Currency();
+		currency.setCurrencyCode(code);
+		return currency;
+	}
+}
@@ -0,0 +1,212 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+import com.bloomberg.fxdeals.entity.Currency;
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.repo.CurrencyRepository;
+import com.bloomberg.fxdeals.repo.DealRepository;
+import com.bloomberg.fxdeals.service.AdaptiveBatchController;
+import com.bloomberg.fxdeals.service.CurrencyService;
+import com.bloomberg.fxdeals.service.DealBatchImportService;
+import com.bloomberg.fxdeals.service.DealBatchWriter;
+import com.bloomberg.fxdeals.service.DealRecordValidator;
+import com.bloomberg.fxdeals.service.DealService;
+import com.bloomberg.fxdeals.service.FxRateService;
+import com.bloomberg.fxdeals.service.IngestDiagnostics;
+import com.bloomberg.fxdeals.service.IngestDiagnosticsService;
+import com.bloomberg.fxdeals.service.RejectionReason;
+
+class DealBatchImportServiceTest {
+
+	@Mock
+	private DealRepository dealRepository;
+
+	@Mock
+	private CurrencyRepository currencyRepository;
+
+	@Mock
+	private AdaptiveBatchController adaptiveBatchController;
+
+	private final Map<String, Currency> currencyTable = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> currencyInserts = new ConcurrentHashMap<>();
+	private DealBatchImportService dealBatchImportService;
+	private DealBatchWriter dealBatchWriter;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(adaptiveBatchController.getBatchSize()).thenReturn(2);
+		when(adaptiveBatchController.getWriters()).thenReturn(4);
+		when(dealRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		// The currency table with its unique constraint on the code; inserts are slow to widen the race window.
+		when(currencyRepository.findByCurrencyCode(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(currencyTable.get(invocation.getArgument(0))));
+		when(currencyRepository.saveAndFlush(any(Currency.class))).thenAnswer(invocation -> {
+			Currency currency = invocation.getArgument(0);
+			currencyInserts.computeIfAbsent(currency.getCurrencyCode(), code -> new AtomicInteger()).incrementAndGet();
+			Thread.sleep(20);
+			if (currencyTable.putIfAbsent(currency.getCurrencyCode(), currency) != null) {
+				throw new DataIntegrityViolationException("duplicate currency_code " + currency.getCurrencyCode());
+			}
+			return currency;
+		});
+
+		CurrencyService currencyService = new CurrencyService();
+		ReflectionTestUtils.setField(currencyService, "currencyRepository", currencyRepository);
+		ReflectionTestUtils.setField(currencyService, "transactionManager", mock(PlatformTransactionManager.class));
+
+		DealService dealService = new DealService();
+		ReflectionTestUtils.setField(dealService, "dealRepository", dealRepository);
+		ReflectionTestUtils.setField(dealService, "currencyService", currencyService);
+		ReflectionTestUtils.setField(dealService, "eventPublisher", mock(ApplicationEventPublisher.class));
+		ReflectionTestUtils.setField(dealService, "fxRateService", mock(FxRateService.class));
+
+		dealBatchWriter = new DealBatchWriter();
+		ReflectionTestUtils.setField(dealBatchWriter, "dealService", dealService);
+
+		DealRecordValidator dealRecordValidator = new DealRecordValidator();
+		ReflectionTestUtils.setField(dealRecordValidator, "currencyService", currencyService);
+
+		dealBatchImportService = new DealBatchImportService();
+		ReflectionTestUtils.setField(dealBatchImportService, "dealRecordValidator", dealRecordValidator);
+		ReflectionTestUtils.setField(dealBatchImportService, "dealBatchWriter", dealBatchWriter);
+		ReflectionTestUtils.setField(dealBatchImportService, "adaptiveBatchController", adaptiveBatchController);
+		ReflectionTestUtils.setField(dealBatchImportService, "ingestDiagnosticsService", new IngestDiagnosticsService());
+		ReflectionTestUtils.setField(dealBatchImportService, "maxWriters", 4);
+		dealBatchImportService.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		dealBatchImportService.stop();
+	}
+
+	@Test
+	void importCsv_parallelWritersWithNewCurrencies_shouldCreateEachCurrencyOnceAndSaveAllDeals() {
+		String[] currencies = { "CHF", "SEK", "NOK", "DKK" };
+		StringBuilder csv = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			csv.append("deal").append(i).append(',').append(currencies[i % currencies.length])
+					.append(",EUR,2024-08-20 12:30:00,1000.00\n");
+		}
+
+		DealService.SaveResult result = dealBatchImportService.importCsv(new StringReader(csv.toString()), false);
+
+		assertEquals(40, result.getTotalDeals());
+		assertEquals(40, result.getSuccessfulDeals());
+		assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+		assertEquals(5, currencyTable.size());
+		currencyInserts.forEach((code, inserts) -> assertEquals(1, inserts.get(), code));
+	}
+
+	@Test
+	void importCsv_validDeals_shouldSaveAllDeals() {
+		String csvContent = "deal6,AUD,EUR,2024-08-20 12:30:00,1000.00\n" +
+				"deal7,GBP,USD,2024-08-20 13:30:00,1500.50";
+
+		DealService.SaveResult result = dealBatchImportService.importCsv(new StringReader(csvContent), false);
+
+		verify(dealRepository, times(1)).saveAll(anyList());
+		assertEquals(2, result.getSuccessfulDeals(), "Number of successful deals should be 2");
+		assertEquals(2, result.getTotalDeals(), "Total number of deals should be 2");
+		assertTrue(result.getErrors().isEmpty(), "There should be no errors");
+	}
+
+	@Test
+	void importCsv_invalidAndValidDeals_shouldSaveValidDealsOnly() {
+		String csvContent = "deal8,USD,EUR,2024-08-20 12:30:00,1000.00\n" +
+				"deal9,USD,USD,2024-08-20 13:30:00,1500.50"; // Invalid: same from/to currency
+
+		DealService.SaveResult result = dealBatchImportService.importCsv(new StringReader(csvContent), false);
+
+		assertEquals(1, result.getSuccessfulDeals());
+		assertEquals(2, result.getTotalDeals());
+		assertEquals(1, result.getErrors().size()); // One error expected due to invalid deal
+	}
+
+	@Test
+	void importCsv_dealAlreadyExists_shouldNotSaveDuplicate() {
+		String csvContent = "deal1,USD,EUR,2024-08-20 12:30:00,1000.00";
+		when(dealRepository.findExistingDealUniqueIds(anyList())).thenReturn(List.of("deal1"));
+
+		DealService.SaveResult result = dealBatchImportService.importCsv(new StringReader(csvContent), false);
+
+		verify(dealRepository, never()).save(any(Deal.class));
+		assertEquals(0, result.getSuccessfulDeals());
+		assertEquals(1, result.getTotalDeals());
+		assertEquals(1, result.getErrors().size());
+	}
+
+	@Test
+	void importCsv_batchSavedOneByOne_shouldNotReportItsLatency() {
+		when(dealRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate deal"));
+		when(dealRepository.findByDealUniqueId(anyString())).thenReturn(Optional.empty());
+		when(dealRepository.save(any(Deal.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		String csvContent = "deal1,USD,EUR,2024-08-20 12:30:00,1000.00\n" +
+				"deal2,USD,EUR,2024-08-20 12:31:00,2000.00";
+
+		DealService.SaveResult result = dealBatchImportService.importCsv(new StringReader(csvContent), false);
+
+		assertEquals(2, result.getSuccessfulDeals());
+		verify(adaptiveBatchController).recordFlush(eq(2), eq(-1L), eq(0));
+	}
+
+	@Test
+	void importCsv_failingFlush_shouldRejectItsDealsAndKeepReading() {
+		DealBatchWriter failingWriter = mock(DealBatchWriter.class);
+		when(failingWriter.write(anyList(), any(RejectionReason[].class), any(), any(IngestDiagnostics.class), any()))
+				.thenAnswer(invocation -> {
+					List<DealRecord> records = invocation.getArgument(0);
+					if (records.get(0).getDealUniqueId().equals("bad")) {
+						throw new IllegalStateException("connection lost");
+					}
+					Thread.sleep(100);
+					return records.size();
+				});
+		ReflectionTestUtils.setField(dealBatchImportService, "dealBatchWriter", failingWriter);
+		StringBuilder csv = new StringBuilder("bad,USD,EUR,2024-08-20 12:30:00,1000.00\n");
+		for (int i = 1; i < 10; i++) {
+			csv.append("deal").append(i).append(",USD,EUR,2024-08-20 12:30:00,1000.00\n");
+		}
+
+		DealService.SaveResult result = dealBatchImportService.importCsv(new StringReader(csv.toString()), false);
+
+		// The first batch fails; its deals are rejected and the rest of the file is still written.
+		assertEquals(8, result.getSuccessfulDeals());
+		assertEquals(10, result.getTotalDeals());
+		assertTrue(result.getErrors().get(0).contains("connection lost"), result.getErrors().toString());
+		assertTrue(result.getErrors().contains("Rejected deal with unique ID bad: "
+				+ RejectionReason.SAVE_FAILED.getDescription()), result.getErrors().toString());
+		verify(adaptiveBatchController).recordFlush(eq(2), eq(-1L), eq(2));
+	}
+}
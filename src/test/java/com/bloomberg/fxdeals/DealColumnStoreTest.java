@@ -0,0 +1,226 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bloomberg.fxdeals.entity.Currency;
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.event.DealsSavedEvent;
+import com.bloomberg.fxdeals.repo.DealRepository;
+import com.bloomberg.fxdeals.service.DealColumnStore;
+import com.bloomberg.fxdeals.service.DealColumnStore.DealAggregate;
+
+class DealColumnStoreTest {
+
+	@Mock
+	private DealRepository dealRepository;
+
+	@InjectMocks
+	private DealColumnStore dealColumnStore;
+
+	private final LocalDateTime now = LocalDateTime.now();
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(dealColumnStore, "enabled", true);
+		ReflectionTestUtils.setField(dealColumnStore, "retentionDays", 7);
+		ReflectionTestUtils.setField(dealColumnStore, "segmentCapacity", 2);
+		when(dealRepository.streamDealColumns(any(Timestamp.class))).thenReturn(Stream.empty());
+		dealColumnStore.load();
+	}
+
+	@Test
+	void aggregate_shouldFilterByWindowAndCurrencyPair() {
+		dealColumnStore.onDealsSaved(new DealsSavedEvent(List.of(
+				deal(1L, "D1", "USD", "EUR", now.minusHours(3), "100.50", "100.50"),
+				deal(2L, "D2", "USD", "EUR", now.minusHours(1), "200.25", "200.25"),
+				deal(3L, "D3", "GBP", "EUR", now.minusHours(1), "50", "63.50"),
+				deal(4L, "D4", "USD", "JPY", now.minusMinutes(5), "10.01", "10.01"))));
+
+		DealAggregate fromUsd = dealColumnStore.aggregate(ts(now.minusDays(1)), ts(now), "USD", null);
+		assertEquals(3, fromUsd.getCount());
+		assertEquals(new BigDecimal("310.76"), fromUsd.getSum());
+		assertEquals(new BigDecimal("10.01"), fromUsd.getMin());
+		assertEquals(new BigDecimal("200.25"), fromUsd.getMax());
+
+		DealAggregate usdEur = dealColumnStore.aggregate(ts(now.minusHours(2)), ts(now), "USD", "EUR");
+		assertEquals(1, usdEur.getCount());
+		assertEquals(new BigDecimal("200.25"), usdEur.getSum());
+
+		DealAggregate toEur = dealColumnStore.aggregate(ts(now.minusDays(1)), ts(now), null, "EUR");
+		assertEquals(3, toEur.getCount());
+		assertEquals(new BigDecimal("364.25"), toEur.getUsdNotional());
+	}
+
+	@Test
+	void aggregate_mixedFromCurrencies_shouldOnlySumUsdNotionals() {
+		dealColumnStore.onDealsSaved(new DealsSavedEvent(List.of(
+				deal(1L, "D1", "USD", "EUR", now.minusHours(1), "100", "100"),
+				deal(2L, "D2", "JPY", "EUR", now.minusHours(1), "15000", "100.00"),
+				deal(3L, "D3", "XAU", "EUR", now.minusHours(1), "1", null))));
+
+		DealAggregate all = dealColumnStore.aggregate(ts(now.minusDays(1)), ts(now), null, null);
+		assertEquals(3, all.getCount());
+		assertNull(all.getSum());
+		assertNull(all.getMin());
+		assertNull(all.getMax());
+		assertEquals(new BigDecimal("200.00"), all.getUsdNotional());
+		assertEquals(1, all.getCountWithoutUsdNotional());
+	}
+
+	@Test
+	void aggregate_windowStartingBeforeRetention_shouldSkipExpiredDealsStillHeld() {
+		ReflectionTestUtils.setField(dealColumnStore, "retentionDays", 30);
+		dealColumnStore.onDealsSaved(new DealsSavedEvent(List.of(
+				deal(1L, "OLD", "USD", "EUR", now.minusDays(10), "100"),
+				deal(2L, "NEW", "USD", "EUR", now.minusHours(1), "1"))));
+		ReflectionTestUtils.setField(dealColumnStore, "retentionDays", 7);
+
+		DealAggregate aggregate = dealColumnStore.aggregate(ts(now.minusDays(30)), ts(now), "USD", null);
+		assertEquals(2, dealColumnStore.size());
+		assertEquals(1, aggregate.getCount());
+		assertEquals(new BigDecimal("1.00"), aggregate.getSum());
+	}
+
+	@Test
+	void onDealsSaved_moreDealsThanTheFirstBuffersHold_shouldGrowTheSegment() {
+		DealColumnStore store = newStore();
+		ReflectionTestUtils.setField(store, "segmentCapacity", 5000);
+		when(dealRepository.streamDealColumns(any(Timestamp.class))).thenReturn(Stream.empty());
+		store.load();
+		for (long id = 1; id <= 3000; id++) {
+			store.onDealsSaved(new DealsSavedEvent(List.of(deal(id, "D" + id, "USD", "EUR", now.minusHours(1), "1"))));
+		}
+
+		DealAggregate aggregate = store.aggregate(ts(now.minusDays(1)), ts(now), "USD", null);
+		assertEquals(3000, store.size());
+		assertEquals(3000, aggregate.getCount());
+		assertEquals(new BigDecimal("3000.00"), aggregate.getSum());
+	}
+
+	@Test
+	void aggregate_unknownCurrency_shouldMatchNothing() {
+		dealColumnStore.onDealsSaved(new DealsSavedEvent(List.of(
+				deal(1L, "D1", "USD", "EUR", now.minusHours(1), "100"))));
+
+		DealAggregate aggregate = dealColumnStore.aggregate(ts(now.minusDays(1)), ts(now), "CHF", null);
+		assertEquals(0, aggregate.getCount());
+		assertEquals(0, aggregate.getSum().signum());
+		assertNull(aggregate.getMin());
+	}
+
+	@Test
+	void onDealsSaved_dealOutsideRetention_shouldBeSkipped() {
+		dealColumnStore.onDealsSaved(new DealsSavedEvent(List.of(
+				deal(1L, "OLD", "USD", "EUR", now.minusDays(30), "100"),
+				deal(2L, "NEW", "USD", "EUR", now.minusHours(1), "100"))));
+
+		assertEquals(1, dealColumnStore.size());
+	}
+
+	@Test
+	void load_shouldStreamRetainedDealsAndSkipTheirSaveEvents() {
+		DealColumnStore store = newStore();
+		when(dealRepository.streamDealColumns(any(Timestamp.class))).thenReturn(Stream.of(
+				row(1L, now.minusHours(2), "1.00"),
+				row(2L, now.minusHours(2), "2.00"),
+				row(3L, now.minusHours(2), "3.00")));
+
+		store.onDealsSaved(new DealsSavedEvent(List.of(deal(3L, "D3", "USD", "EUR", now.minusHours(2), "3.00"))));
+		store.load();
+		store.onDealsSaved(new DealsSavedEvent(List.of(deal(4L, "D4", "USD", "EUR", now.minusHours(1), "4.00"))));
+
+		DealAggregate aggregate = store.aggregate(ts(now.minusDays(1)), ts(now), "USD", "EUR");
+		assertEquals(4, aggregate.getCount());
+		assertEquals(new BigDecimal("10.00"), aggregate.getSum());
+	}
+
+	@Test
+	void load_dealCommittedAfterSnapshotWithLowerId_shouldBeMerged() {
+		DealColumnStore store = newStore();
+		// Deal 2 took its ID before deal 3 but committed only after the load's snapshot was taken.
+		when(dealRepository.streamDealColumns(any(Timestamp.class))).thenAnswer(invocation -> {
+			store.onDealsSaved(new DealsSavedEvent(List.of(
+					deal(2L, "D2", "USD", "EUR", now.minusHours(1), "2.00"),
+					deal(3L, "D3", "USD", "EUR", now.minusHours(1), "3.00"))));
+			return Stream.of(row(1L, now.minusHours(2), "1.00"), row(3L, now.minusHours(1), "3.00"));
+		});
+
+		store.load();
+
+		DealAggregate aggregate = store.aggregate(ts(now.minusDays(1)), ts(now), "USD", null);
+		assertEquals(3, aggregate.getCount());
+		assertEquals(new BigDecimal("6.00"), aggregate.getSum());
+	}
+
+	@Test
+	void load_rowThatCannotBeStored_shouldBeSkipped() {
+		DealColumnStore store = newStore();
+		when(dealRepository.streamDealColumns(any(Timestamp.class))).thenReturn(Stream.of(
+				row(1L, now.minusHours(2), "1.00"),
+				row(2L, now.minusHours(2), "1e30"),
+				row(3L, now.minusHours(2), "3.00")));
+
+		store.load();
+
+		assertEquals(2, store.size());
+		assertEquals(new BigDecimal("4.00"), store.aggregate(ts(now.minusDays(1)), ts(now), "USD", null).getSum());
+	}
+
+	private DealColumnStore newStore() {
+		DealColumnStore store = new DealColumnStore();
+		ReflectionTestUtils.setField(store, "dealRepository", dealRepository);
+		ReflectionTestUtils.setField(store, "enabled", true);
+		ReflectionTestUtils.setField(store, "retentionDays", 7);
+		ReflectionTestUtils.setField(store, "segmentCapacity", 2);
+		return store;
+	}
+
+	private static Object[] row(Long id, LocalDateTime timestamp, String amount) {
+		return new Object[] { id, "USD", "EUR", ts(timestamp), new BigDecimal(amount), new BigDecimal(amount) };
+	}
+
+	private static Deal deal(Long id, String uniqueId, String from, String to, LocalDateTime timestamp,
+			String amount) {
+		return deal(id, uniqueId, from, to, timestamp, amount, null);
+	}
+
+	private static Deal deal(Long id, String uniqueId, String from, String to, LocalDateTime timestamp,
+			String amount, String usdNotional) {
+		Deal deal = new Deal();
+		deal.setDealId(id);
+		deal.setDealUniqueId(uniqueId);
+		deal.setFromCurrency(currency(from));
+		deal.setToCurrency(currency(to));
+		deal.setDealTimestamp(ts(timestamp));
+		deal.setDealAmount(new BigDecimal(amount));
+		deal.setUsdNotional(usdNotional != null ? new BigDecimal(usdNotional) : null);
+		return deal;
+	}
+
+	private static Currency currency(String code) {
+		Currency currency = new Currency();
+		currency.setCurrencyCode(code);
+		return currency;
+	}
+
+	private static Timestamp ts(LocalDateTime dateTime) {
+		return Timestamp.valueOf(dateTime);
+	}
+}
@@ -0,0 +1,137 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.repo.DealRepository;
+import com.bloomberg.fxdeals.service.DealDryRunService;
+import com.bloomberg.fxdeals.service.DealDryRunService.DryRunResult;
+import com.bloomberg.fxdeals.service.DealRecordValidator;
+import com.bloomberg.fxdeals.service.IngestDiagnosticsService;
+import com.bloomberg.fxdeals.service.RejectionReason;
+
+class DealDryRunServiceTest {
+
+	@Mock
+	private DealRepository dealRepository;
+
+	@Mock
+	private DealRecordValidator dealRecordValidator;
+
+	@InjectMocks
+	private DealDryRunService dealDryRunService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(dealDryRunService, "chunkSize", 2);
+		ReflectionTestUtils.setField(dealDryRunService, "maxErrors", 1000);
+		ReflectionTestUtils.setField(dealDryRunService, "ingestDiagnosticsService", new IngestDiagnosticsService());
+		ReflectionTestUtils.setField(dealDryRunService, "parallelism", 2);
+		dealDryRunService.start();
+
+		when(dealRecordValidator.validate(any())).thenAnswer(invocation -> {
+			DealRecord record = invocation.getArgument(0);
+			if (record == null) {
+				return RejectionReason.MALFORMED_RECORD;
+			}
+			return record.getFromCurrencyCode().equals(record.getToCurrencyCode()) ? RejectionReason.SAME_CURRENCY
+					: null;
+		});
+		when(dealRepository.findExistingDealUniqueIds(anyCollection())).thenAnswer(invocation -> {
+			Collection<String> ids = invocation.getArgument(0);
+			List<String> existing = new ArrayList<>();
+			if (ids.contains("deal3")) {
+				existing.add("deal3");
+			}
+			return existing;
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		dealDryRunService.stop();
+	}
+
+	@Test
+	void validateDealsFromCsv_mixedDeals_shouldCountRejectionsByReasonWithoutSaving() {
+		String csvContent = "deal1,USD,EUR,2024-08-20 12:30:00,1000.00\n" +
+				"deal2,USD,USD,2024-08-20 13:30:00,1500.50\n" +
+				"deal1,GBP,EUR,2024-08-20 14:30:00,2000.75\n" +
+				"deal3,AUD,CAD,2024-08-20 15:30:00,2500.25\n" +
+				"deal4,EUR,JPY\n" +
+				"deal5,JPY,GBP,2024-08-20 16:30:00,3000.50";
+
+		DryRunResult result = dealDryRunService.validateDealsFromCsv(new StringReader(csvContent), false);
+
+		assertEquals(6, result.getTotalDeals());
+		assertEquals(2, result.getSuccessfulDeals());
+		assertEquals(4, result.getErrors().size());
+		assertEquals(1L, result.getRejectionCounts().get(RejectionReason.SAME_CURRENCY));
+		assertEquals(1L, result.getRejectionCounts().get(RejectionReason.DUPLICATE_IN_INPUT));
+		assertEquals(1L, result.getRejectionCounts().get(RejectionReason.ALREADY_EXISTS));
+		assertEquals(1L, result.getRejectionCounts().get(RejectionReason.MALFORMED_RECORD));
+
+		verify(dealRepository, never()).save(any(Deal.class));
+		verify(dealRepository, never()).saveAll(any());
+	}
+
+	@Test
+	void validateDealsFromCsv_concurrentDryRuns_shouldShareTheBoundedPool() throws Exception {
+		StringBuilder csv = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			csv.append("deal").append(i + 10).append(",USD,EUR,2024-08-20 12:30:00,1000.00\n");
+		}
+		ExecutorService requests = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<DryRunResult>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(requests.submit(
+						() -> dealDryRunService.validateDealsFromCsv(new StringReader(csv.toString()), false)));
+			}
+			for (Future<DryRunResult> result : results) {
+				assertEquals(50, result.get().getTotalDeals());
+				assertEquals(50, result.get().getSuccessfulDeals());
+			}
+		} finally {
+			requests.shutdownNow();
+		}
+
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(dealDryRunService, "executor");
+		assertTrue(executor.getLargestPoolSize() <= 2, "dry-run workers: " + executor.getLargestPoolSize());
+	}
+
+	@Test
+	void start_chunkSizeAboveBindParameterLimit_shouldBeCapped() {
+		dealDryRunService.stop();
+		ReflectionTestUtils.setField(dealDryRunService, "chunkSize", 100000);
+
+		dealDryRunService.start();
+
+		assertEquals(32000, ReflectionTestUtils.getField(dealDryRunService, "chunkSize"));
+	}
+}
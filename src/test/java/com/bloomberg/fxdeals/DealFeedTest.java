@@ -0,0 +1,242 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bloomberg.fxdeals.entity.Currency;
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.event.DealsSavedEvent;
+import com.bloomberg.fxdeals.service.DealFeed;
+import com.bloomberg.fxdeals.service.DealFeed.SlowConsumerPolicy;
+import com.bloomberg.fxdeals.service.DealFeedEvent;
+import com.bloomberg.fxdeals.service.DealFeedSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class DealFeedTest {
+
+	private DealFeed dealFeed;
+
+	@BeforeEach
+	void setUp() {
+		dealFeed = new DealFeed();
+		ReflectionTestUtils.setField(dealFeed, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(dealFeed, "capacity", 8);
+		ReflectionTestUtils.setField(dealFeed, "maxLag", 4);
+		ReflectionTestUtils.setField(dealFeed, "slowConsumerPolicy", SlowConsumerPolicy.DROP);
+		ReflectionTestUtils.setField(dealFeed, "maxSubscribers", 2);
+		ReflectionTestUtils.setField(dealFeed, "maxBatch", 16);
+		ReflectionTestUtils.setField(dealFeed, "heartbeatMs", 10000L);
+		dealFeed.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		dealFeed.stop();
+	}
+
+	@Test
+	void onDealsSaved_shouldDeliverEveryDealInOrderToEachSubscriber() throws Exception {
+		RecordingSink first = new RecordingSink(3);
+		RecordingSink second = new RecordingSink(3);
+		dealFeed.subscribe(null, first);
+		dealFeed.subscribe(null, second);
+
+		dealFeed.onDealsSaved(new DealsSavedEvent(List.of(deal("D1"), deal("D2"))));
+		dealFeed.onDealsSaved(new DealsSavedEvent(List.of(deal("D3"))));
+
+		assertTrue(first.received.await(5, TimeUnit.SECONDS));
+		assertTrue(second.received.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of(0L, 1L, 2L), first.sequences());
+		assertEquals(List.of(0L, 1L, 2L), second.sequences());
+		assertTrue(first.events.get(0).getJson().contains("\"dealUniqueId\":\"D1\""));
+		assertTrue(first.events.get(0).getJson().contains("\"fromCurrency\":\"USD\""));
+	}
+
+	@Test
+	void subscribe_withLastSequence_shouldResumeAfterIt() throws Exception {
+		dealFeed.onDealsSaved(new DealsSavedEvent(List.of(deal("D1"), deal("D2"), deal("D3"))));
+
+		RecordingSink sink = new RecordingSink(2);
+		dealFeed.subscribe(dealFeed.eventId(0), sink);
+
+		assertTrue(sink.received.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of(1L, 2L), sink.sequences());
+		assertEquals(1, sink.gapped.getCount());
+	}
+
+	@Test
+	void subscribe_withEventIdOfAnotherStart_shouldReportGapAndResumeWithOldest() throws Exception {
+		dealFeed.onDealsSaved(new DealsSavedEvent(List.of(deal("D1"), deal("D2"))));
+		long otherEpoch = Long.parseLong(dealFeed.eventId(0).split("-")[0]) - 1;
+
+		RecordingSink sink = new RecordingSink(2);
+		dealFeed.subscribe(otherEpoch + "-1", sink);
+
+		assertTrue(sink.gapped.await(5, TimeUnit.SECONDS));
+		assertTrue(sink.received.await(5, TimeUnit.SECONDS));
+		assertEquals(-1, sink.dropped);
+		assertEquals(0, sink.nextSequence);
+		assertEquals(List.of(0L, 1L), sink.sequences());
+	}
+
+	@Test
+	void subscribe_withEventIdPastHead_shouldReportGap() throws Exception {
+		dealFeed.onDealsSaved(new DealsSavedEvent(List.of(deal("D1"))));
+
+		RecordingSink sink = new RecordingSink(1);
+		dealFeed.subscribe(dealFeed.eventId(5), sink);
+
+		assertTrue(sink.gapped.await(5, TimeUnit.SECONDS));
+		assertTrue(sink.received.await(5, TimeUnit.SECONDS));
+		assertEquals(-1, sink.dropped);
+		assertEquals(List.of(0L), sink.sequences());
+	}
+
+	@Test
+	void subscribe_withMalformedEventId_shouldBeRefused() {
+		assertThrows(IllegalArgumentException.class, () -> dealFeed.subscribe("12", new RecordingSink(1)));
+		assertThrows(IllegalArgumentException.class, () -> dealFeed.subscribe("abc-1", new RecordingSink(1)));
+		assertEquals(0, dealFeed.getSubscriberCount());
+	}
+
+	@Test
+	void subscribe_tooManySubscribers_shouldBeRefused() {
+		dealFeed.subscribe(null, new RecordingSink(1));
+		dealFeed.subscribe(null, new RecordingSink(1));
+
+		assertThrows(IllegalStateException.class, () -> dealFeed.subscribe(null, new RecordingSink(1)));
+	}
+
+	@Test
+	void slowConsumer_dropPolicy_shouldSkipToNewestAndReportGap() throws Exception {
+		RecordingSink sink = new RecordingSink(1);
+		dealFeed.subscribe(null, sink);
+		dealFeed.onDealsSaved(new DealsSavedEvent(List.of(deal("D0"))));
+		assertTrue(sink.received.await(5, TimeUnit.SECONDS));
+		sink.blocked = new CountDownLatch(1);
+
+		dealFeed.onDealsSaved(new DealsSavedEvent(List.of(deal("D1"))));
+		assertTrue(sink.sending.await(5, TimeUnit.SECONDS));
+		List<Deal> burst = new ArrayList<>();
+		for (int i = 2; i < 12; i++) {
+			burst.add(deal("D" + i));
+		}
+		dealFeed.onDealsSaved(new DealsSavedEvent(burst));
+		sink.blocked.countDown();
+
+		assertTrue(sink.gapped.await(5, TimeUnit.SECONDS));
+		assertEquals(10, sink.dropped);
+		assertEquals(12, sink.nextSequence);
+	}
+
+	@Test
+	void slowConsumer_disconnectPolicy_shouldCloseSubscription() throws Exception {
+		ReflectionTestUtils.setField(dealFeed, "slowConsumerPolicy", SlowConsumerPolicy.DISCONNECT);
+		RecordingSink sink = new RecordingSink(1);
+		sink.blocked = new CountDownLatch(1);
+		DealFeed.Subscription subscription = dealFeed.subscribe(null, sink);
+
+		dealFeed.onDealsSaved(new DealsSavedEvent(List.of(deal("D0"))));
+		assertTrue(sink.sending.await(5, TimeUnit.SECONDS));
+		List<Deal> burst = new ArrayList<>();
+		for (int i = 1; i < 10; i++) {
+			burst.add(deal("D" + i));
+		}
+		dealFeed.onDealsSaved(new DealsSavedEvent(burst));
+		sink.blocked.countDown();
+
+		assertTrue(sink.closed.await(5, TimeUnit.SECONDS));
+		assertTrue(sink.closeReason.startsWith("slow consumer"));
+		assertFalse(subscription.isOpen());
+		assertEquals(0, dealFeed.getSubscriberCount());
+	}
+
+	private static Deal deal(String uniqueId) {
+		Currency usd = new Currency();
+		usd.setCurrencyCode("USD");
+		Currency eur = new Currency();
+		eur.setCurrencyCode("EUR");
+		Deal deal = new Deal();
+		deal.setDealUniqueId(uniqueId);
+		deal.setFromCurrency(usd);
+		deal.setToCurrency(eur);
+		deal.setDealTimestamp(Timestamp.valueOf("2024-08-20 12:30:00"));
+		deal.setDealAmount(new BigDecimal("100.00"));
+		return deal;
+	}
+
+	private static class RecordingSink implements DealFeedSink {
+
+		private final List<DealFeedEvent> events = new CopyOnWriteArrayList<>();
+		private final CountDownLatch received;
+		private final CountDownLatch sending = new CountDownLatch(1);
+		private final CountDownLatch gapped = new CountDownLatch(1);
+		private final CountDownLatch closed = new CountDownLatch(1);
+		private volatile CountDownLatch blocked;
+		private volatile long dropped;
+		private volatile long nextSequence;
+		private volatile String closeReason;
+
+		RecordingSink(int expected) {
+			this.received = new CountDownLatch(expected);
+		}
+
+		@Override
+		public void send(List<DealFeedEvent> batch) throws IOException {
+			CountDownLatch block = blocked;
+			if (block != null) {
+				sending.countDown();
+				try {
+					block.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			events.addAll(batch);
+			for (int i = 0; i < batch.size(); i++) {
+				received.countDown();
+			}
+		}
+
+		@Override
+		public void gap(long dropped, long nextSequence) {
+			this.dropped = dropped;
+			this.nextSequence = nextSequence;
+			gapped.countDown();
+		}
+
+		@Override
+		public void heartbeat() {
+		}
+
+		@Override
+		public void close(String reason) {
+			closeReason = reason;
+			closed.countDown();
+		}
+
+		List<Long> sequences() {
+			List<Long> sequences = new ArrayList<>();
+			for (DealFeedEvent event : events) {
+				sequences.add(event.getSequence());
+			}
+			return sequences;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+import com.bloomberg.fxdeals.service.CurrencyService;
+import com.bloomberg.fxdeals.service.DealRecordValidator;
+import com.bloomberg.fxdeals.service.RejectionReason;
+
+class DealRecordValidatorTest {
+
+	@Mock
+	private CurrencyService currencyService;
+
+	@InjectMocks
+	private DealRecordValidator dealRecordValidator;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(currencyService.isValidCurrencyCode(anyString())).thenCallRealMethod();
+	}
+
+	@Test
+	void validate_validRow_shouldReturnNull() {
+		String[] validRow = { "deal1", "USD", "EUR", "2024-08-20 12:30:00", "1000.00" };
+		assertNull(dealRecordValidator.validate(DealRecord.fromCsvRow(validRow)));
+	}
+
+	@Test
+	void validate_missingFields_shouldReturnMalformedRecord() {
+		String[] missingFieldRow = { "deal2", "USD", "EUR", "2024-08-20 12:30:00" };
+		assertEquals(RejectionReason.MALFORMED_RECORD, dealRecordValidator.validate(DealRecord.fromCsvRow(missingFieldRow)));
+	}
+
+	@Test
+	void validate_invalidCurrencyCode_shouldReturnInvalidFromCurrency() {
+		String[] invalidCurrencyRow = { "deal2", "INVALID", "EUR", "2024-08-20 12:30:00", "1000.00" };
+		assertEquals(RejectionReason.INVALID_FROM_CURRENCY,
+				dealRecordValidator.validate(DealRecord.fromCsvRow(invalidCurrencyRow)));
+	}
+
+	@Test
+	void validate_sameFromAndToCurrency_shouldReturnSameCurrency() {
+		String[] sameCurrencyRow = { "deal3", "USD", "USD", "2024-08-20 12:30:00", "1000.00" };
+		assertEquals(RejectionReason.SAME_CURRENCY, dealRecordValidator.validate(DealRecord.fromCsvRow(sameCurrencyRow)));
+	}
+
+	@Test
+	void validate_invalidTimestamp_shouldReturnInvalidTimestamp() {
+		String[] invalidTimestampRow = { "deal4", "USD", "EUR", "invalid-timestamp", "1000.00" };
+		assertEquals(RejectionReason.INVALID_TIMESTAMP,
+				dealRecordValidator.validate(DealRecord.fromCsvRow(invalidTimestampRow)));
+	}
+
+	@Test
+	void validate_invalidNumericalAmount_shouldReturnInvalidAmount() {
+		String[] invalidAmountRow = { "deal5", "USD", "EUR", "2024-08-20 12:30:00", "not-a-number" };
+		assertEquals(RejectionReason.INVALID_AMOUNT, dealRecordValidator.validate(DealRecord.fromCsvRow(invalidAmountRow)));
+	}
+
+	@Test
+	void validate_nonPositiveAmount_shouldReturnNonPositiveAmount() {
+		String[] nonPositiveAmountRow = { "deal5", "USD", "EUR", "2024-08-20 12:30:00", "-1000.00" };
+		assertEquals(RejectionReason.NON_POSITIVE_AMOUNT,
+				dealRecordValidator.validate(DealRecord.fromCsvRow(nonPositiveAmountRow)));
+	}
+}
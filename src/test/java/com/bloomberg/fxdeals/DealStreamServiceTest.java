@@ -0,0 +1,169 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bloomberg.fxdeals.dto.DealRecord;
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.service.DealBatchWriter;
+import com.bloomberg.fxdeals.service.DealRecordValidator;
+import com.bloomberg.fxdeals.service.DealService;
+import com.bloomberg.fxdeals.service.DealStreamService;
+import com.bloomberg.fxdeals.service.IngestDiagnosticsService;
+import com.bloomberg.fxdeals.service.RejectionReason;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class DealStreamServiceTest {
+
+	@Mock
+	private DealService dealService;
+
+	@Mock
+	private DealRecordValidator dealRecordValidator;
+
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+
+	@InjectMocks
+	private DealStreamService dealStreamService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(dealStreamService, "batchSize", 500);
+
+		DealBatchWriter dealBatchWriter = new DealBatchWriter();
+		ReflectionTestUtils.setField(dealBatchWriter, "dealService", dealService);
+		ReflectionTestUtils.setField(dealStreamService, "dealBatchWriter", dealBatchWriter);
+		ReflectionTestUtils.setField(dealStreamService, "ingestDiagnosticsService", new IngestDiagnosticsService());
+
+		when(dealService.toDeal(any(DealRecord.class), any())).thenAnswer(invocation -> {
+			DealRecord record = invocation.getArgument(0);
+			Deal deal = new Deal();
+			deal.setDealUniqueId(record.getDealUniqueId());
+			return deal;
+		});
+		when(dealService.saveDealBatch(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	private List<String> process(String body) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		dealStreamService.processStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out, false);
+		List<String> lines = new ArrayList<>();
+		for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+			lines.add(line);
+		}
+		return lines;
+	}
+
+	@Test
+	void processStream_validDeals_shouldSaveInOneBatch() throws Exception {
+		String body = "{\"dealUniqueId\":\"deal1\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"EUR\","
+				+ "\"dealTimestamp\":\"2024-08-20 12:30:00\",\"dealAmount\":1000.00}\n"
+				+ "{\"dealUniqueId\":\"deal2\",\"fromCurrency\":{\"currencyCode\":\"GBP\"},\"toCurrency\":{\"currencyCode\":\"USD\"},"
+				+ "\"dealTimestamp\":\"2024-08-20T13:30:00\",\"dealAmount\":\"1500.50\"}\n";
+
+		List<String> lines = process(body);
+
+		verify(dealService, times(1)).saveDealBatch(anyList());
+		assertEquals(3, lines.size());
+		assertEquals("{\"line\":1,\"dealUniqueId\":\"deal1\",\"status\":\"SAVED\"}", lines.get(0));
+		assertEquals("{\"line\":2,\"dealUniqueId\":\"deal2\",\"status\":\"SAVED\"}", lines.get(1));
+		assertEquals("{\"total\":2,\"saved\":2,\"rejected\":0}", lines.get(2));
+	}
+
+	@Test
+	void processStream_invalidAndDuplicateDeals_shouldReportReasonPerLine() throws Exception {
+		when(dealRecordValidator.validate(any(DealRecord.class))).thenAnswer(invocation -> {
+			DealRecord record = invocation.getArgument(0);
+			return "USD".equals(record.getToCurrencyCode()) ? RejectionReason.SAME_CURRENCY : null;
+		});
+
+		String body = "{\"dealUniqueId\":\"deal1\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"EUR\"}\n"
+				+ "{\"dealUniqueId\":\"deal2\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"USD\"}\n"
+				+ "[1, 2]\n"
+				+ "{\"dealUniqueId\":\"deal1\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"EUR\"}\n";
+
+		List<String> lines = process(body);
+
+		assertEquals("{\"line\":1,\"dealUniqueId\":\"deal1\",\"status\":\"SAVED\"}", lines.get(0));
+		assertEquals("{\"line\":2,\"dealUniqueId\":\"deal2\",\"status\":\"REJECTED\",\"reason\":\"SAME_CURRENCY\"}",
+				lines.get(1));
+		assertEquals("{\"line\":3,\"status\":\"REJECTED\",\"reason\":\"MALFORMED_RECORD\"}", lines.get(2));
+		assertEquals("{\"line\":4,\"dealUniqueId\":\"deal1\",\"status\":\"REJECTED\",\"reason\":\"DUPLICATE_IN_INPUT\"}",
+				lines.get(3));
+		assertEquals("{\"total\":4,\"saved\":1,\"rejected\":3}", lines.get(4));
+	}
+
+	@Test
+	void processStream_blankAndMultiLineRecords_shouldReportInputLines() throws Exception {
+		String body = "\n{\"dealUniqueId\":\"deal1\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"EUR\"}\n\n"
+				+ "{\"dealUniqueId\":\"deal2\",\n\"fromCurrencyCode\":\"GBP\",\n\"toCurrencyCode\":\"EUR\"}\n"
+				+ "{\"dealUniqueId\":\"deal3\",\"fromCurrencyCode\":\"JPY\",\"toCurrencyCode\":\"EUR\"}\n";
+
+		List<String> lines = process(body);
+
+		assertEquals("{\"line\":2,\"dealUniqueId\":\"deal1\",\"status\":\"SAVED\"}", lines.get(0));
+		assertEquals("{\"line\":4,\"dealUniqueId\":\"deal2\",\"status\":\"SAVED\"}", lines.get(1));
+		assertEquals("{\"line\":7,\"dealUniqueId\":\"deal3\",\"status\":\"SAVED\"}", lines.get(2));
+		assertEquals("{\"total\":3,\"saved\":3,\"rejected\":0}", lines.get(3));
+	}
+
+	@Test
+	void processStream_existingDeal_shouldBeRejected() throws Exception {
+		when(dealService.saveDealBatch(anyList())).thenReturn(new ArrayList<>());
+
+		List<String> lines = process("{\"dealUniqueId\":\"deal1\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"EUR\"}\n");
+
+		assertEquals("{\"line\":1,\"dealUniqueId\":\"deal1\",\"status\":\"REJECTED\",\"reason\":\"ALREADY_EXISTS\"}",
+				lines.get(0));
+		verify(dealService, never()).saveDeal(any(Deal.class));
+	}
+
+	@Test
+	void processStream_malformedJson_shouldAbortAfterFlushingPreviousLines() throws Exception {
+		String body = "{\"dealUniqueId\":\"deal1\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"EUR\"}\n"
+				+ "{\"dealUniqueId\":\"deal2\",\n";
+
+		List<String> lines = process(body);
+
+		assertEquals("{\"line\":1,\"dealUniqueId\":\"deal1\",\"status\":\"SAVED\"}", lines.get(0));
+		assertTrue(lines.get(1).contains("\"status\":\"ABORTED\""));
+		assertEquals("{\"total\":1,\"saved\":1,\"rejected\":0}", lines.get(2));
+	}
+
+	@Test
+	void processStream_duplicateInLaterBatch_shouldBeRejectedAsDuplicateInInput() throws Exception {
+		ReflectionTestUtils.setField(dealStreamService, "batchSize", 1);
+		String body = "{\"dealUniqueId\":\"deal1\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"EUR\"}\n"
+				+ "{\"dealUniqueId\":\"deal2\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"EUR\"}\n"
+				+ "{\"dealUniqueId\":\"deal1\",\"fromCurrencyCode\":\"USD\",\"toCurrencyCode\":\"EUR\"}\n";
+
+		List<String> lines = process(body);
+
+		assertEquals("{\"line\":3,\"dealUniqueId\":\"deal1\",\"status\":\"REJECTED\",\"reason\":\"DUPLICATE_IN_INPUT\"}",
+				lines.get(2));
+		assertEquals("{\"total\":3,\"saved\":2,\"rejected\":1}", lines.get(3));
+		verify(dealService, times(2)).saveDealBatch(anyList());
+	}
+}
@@ -0,0 +1,155 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bloomberg.fxdeals.service.CurrencyService;
+import com.bloomberg.fxdeals.service.DealBatchWriter;
+import com.bloomberg.fxdeals.service.DealRecordValidator;
+import com.bloomberg.fxdeals.service.DropFolderIngestionService;
+import com.bloomberg.fxdeals.service.IngestDiagnostics;
+import com.bloomberg.fxdeals.service.IngestDiagnosticsService;
+import com.bloomberg.fxdeals.service.RejectionReason;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class DropFolderIngestionServiceTest {
+
+	@Mock
+	private CurrencyService currencyService;
+
+	@Mock
+	private DealBatchWriter dealBatchWriter;
+
+	@TempDir
+	Path dropFolder;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Set<Object> currencyMaps = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+	private DropFolderIngestionService dropFolderIngestionService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(currencyService.isValidCurrencyCode(anyString())).thenReturn(true);
+		when(dealBatchWriter.write(anyList(), any(RejectionReason[].class), any(), any(IngestDiagnostics.class)))
+				.thenAnswer(invocation -> {
+					currencyMaps.add(invocation.getArgument(2));
+					RejectionReason[] reasons = invocation.getArgument(1);
+					int saved = 0;
+					for (RejectionReason reason : reasons) {
+						if (reason == null) {
+							saved++;
+						}
+					}
+					return saved;
+				});
+
+		DealRecordValidator dealRecordValidator = new DealRecordValidator();
+		ReflectionTestUtils.setField(dealRecordValidator, "currencyService", currencyService);
+
+		dropFolderIngestionService = new DropFolderIngestionService();
+		ReflectionTestUtils.setField(dropFolderIngestionService, "dealRecordValidator", dealRecordValidator);
+		ReflectionTestUtils.setField(dropFolderIngestionService, "dealBatchWriter", dealBatchWriter);
+		ReflectionTestUtils.setField(dropFolderIngestionService, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(dropFolderIngestionService, "ingestDiagnosticsService",
+				new IngestDiagnosticsService());
+		ReflectionTestUtils.setField(dropFolderIngestionService, "directories",
+				new String[] { dropFolder.toString() });
+		// One line per region, so that the regions of a file run in parallel.
+		ReflectionTestUtils.setField(dropFolderIngestionService, "regionSize", 64L);
+		ReflectionTestUtils.setField(dropFolderIngestionService, "batchSize", 2);
+		ReflectionTestUtils.setField(dropFolderIngestionService, "parallelism", 4);
+		ReflectionTestUtils.setField(dropFolderIngestionService, "maxErrors", 10);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		dropFolderIngestionService.stop();
+	}
+
+	@Test
+	void droppedFile_shouldBeClaimedIngestedAndMovedToDoneWithSidecar() throws Exception {
+		dropFolderIngestionService.start();
+		Path staged = dropFolder.resolve("deals.csv.tmp");
+		Files.writeString(staged, "deal1,USD,EUR,2024-08-20 12:30:00,1000.00\n"
+				+ "deal2,GBP,EUR,2024-08-20 12:31:00,2000.00\n"
+				+ "deal3,\"USD,EUR,2024-08-20 12:32:00,3000.00\n"
+				+ "deal4,JPY,EUR,2024-08-20 12:33:00,4000.00\n");
+		Files.move(staged, dropFolder.resolve("deals.csv"));
+
+		Map<?, ?> result = awaitResult("done", "deals.csv");
+
+		assertEquals(4, result.get("totalDeals"));
+		assertEquals(3, result.get("successfulDeals"));
+		assertEquals(Map.of("MALFORMED_RECORD", 1), result.get("rejectionCounts"));
+		assertFalse(Files.exists(dropFolder.resolve("deals.csv")));
+		assertFalse(Files.exists(dropFolder.resolve("processing").resolve("deals.csv")));
+		assertEquals(1, currencyMaps.size());
+	}
+
+	@Test
+	void fileLeftInProcessing_shouldBeRequeuedAtStartup() throws Exception {
+		Files.createDirectories(dropFolder.resolve("processing"));
+		Files.writeString(dropFolder.resolve("processing").resolve("interrupted.csv"),
+				"deal1,USD,EUR,2024-08-20 12:30:00,1000.00\n");
+
+		dropFolderIngestionService.start();
+		Map<?, ?> result = awaitResult("done", "interrupted.csv");
+
+		assertEquals(1, result.get("totalDeals"));
+		assertEquals(1, result.get("successfulDeals"));
+		assertTrue(Files.exists(dropFolder.resolve("done").resolve("interrupted.csv")));
+	}
+
+	@Test
+	void duplicateInAnotherRegion_shouldBeRejectedAsDuplicateInInput() throws Exception {
+		dropFolderIngestionService.start();
+		Path staged = dropFolder.resolve("duplicates.csv.tmp");
+		Files.writeString(staged, "deal1,USD,EUR,2024-08-20 12:30:00,1000.00\n"
+				+ "deal2,GBP,EUR,2024-08-20 12:31:00,2000.00\n"
+				+ "deal1,JPY,EUR,2024-08-20 12:33:00,4000.00\n");
+		Files.move(staged, dropFolder.resolve("duplicates.csv"));
+
+		Map<?, ?> result = awaitResult("done", "duplicates.csv");
+
+		assertEquals(3, result.get("totalDeals"));
+		assertEquals(2, result.get("successfulDeals"));
+		assertEquals(Map.of("DUPLICATE_IN_INPUT", 1), result.get("rejectionCounts"));
+	}
+
+	@Test
+	void stopBeforeStart_shouldDoNothing() throws Exception {
+		dropFolderIngestionService.stop();
+	}
+
+	private Map<?, ?> awaitResult(String outcome, String fileName) throws Exception {
+		Path moved = dropFolder.resolve(outcome).resolve(fileName);
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!Files.exists(moved) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertTrue(Files.exists(moved), fileName + " was not moved to " + outcome);
+		return objectMapper.readValue(dropFolder.resolve(outcome).resolve(fileName + ".result.json").toFile(),
+				Map.class);
+	}
+}
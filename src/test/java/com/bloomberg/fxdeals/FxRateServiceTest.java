@@ -0,0 +1,164 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.bloomberg.fxdeals.entity.Currency;
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.entity.FxRate;
+import com.bloomberg.fxdeals.repo.FxRateRepository;
+import com.bloomberg.fxdeals.service.FxRateService;
+import com.bloomberg.fxdeals.service.FxRateSnapshot;
+
+class FxRateServiceTest {
+
+	@Mock
+	private FxRateRepository fxRateRepository;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@InjectMocks
+	private FxRateService fxRateService;
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(fxRateService, "ratesFile", "");
+		ReflectionTestUtils.setField(fxRateService, "pivotCurrencies", new String[] { "USD", "EUR" });
+		ReflectionTestUtils.setField(fxRateService, "refreshIntervalMs", 60000L);
+		ReflectionTestUtils.setField(fxRateService, "retryIntervalMs", 60000L);
+	}
+
+	@AfterEach
+	void tearDown() {
+		fxRateService.stop();
+	}
+
+	@Test
+	void toUsdNotional_beforeFirstLoad_shouldNotLoadTheRates() {
+		when(fxRateRepository.findAll()).thenReturn(List.of(rate("EUR", "USD", "1.10")));
+
+		assertNull(fxRateService.toUsdNotional(deal("EUR", "100")));
+		verify(fxRateRepository, never()).findAll();
+	}
+
+	@Test
+	void warmUp_failingFirstLoad_shouldBeRetriedByTheRefresher() throws InterruptedException {
+		ReflectionTestUtils.setField(fxRateService, "retryIntervalMs", 10L);
+		when(fxRateRepository.findAll()).thenThrow(new IllegalStateException("relation \"fx_rate\" does not exist"))
+				.thenReturn(List.of(rate("EUR", "USD", "1.10")));
+
+		fxRateService.warmUp();
+		verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+		verify(transactionManager).rollback(any());
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (fxRateService.getSnapshot().size() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(new BigDecimal("110.00"), fxRateService.toUsdNotional(deal("EUR", "100")));
+	}
+
+	@Test
+	void toUsdNotional_notionalTooLargeForTheColumn_shouldReturnNull() {
+		when(fxRateRepository.findAll()).thenReturn(List.of(rate("XAU", "USD", "2000")));
+		fxRateService.refresh();
+
+		assertEquals(new BigDecimal("2000000.00"), fxRateService.toUsdNotional(deal("XAU", "1000")));
+		assertNull(fxRateService.toUsdNotional(deal("XAU", "9999999999999999.99")));
+	}
+
+	@Test
+	void refresh_fromTable_shouldConvertDirectInverseAndCrossRates() {
+		when(fxRateRepository.findAll()).thenReturn(List.of(rate("EUR", "USD", "1.10"), rate("USD", "JPY", "150"),
+				rate("EUR", "SEK", "11.00")));
+		fxRateService.refresh();
+
+		assertEquals(new BigDecimal("110.00"), fxRateService.toUsdNotional(deal("EUR", "100")));
+		assertEquals(new BigDecimal("1.00"), fxRateService.toUsdNotional(deal("JPY", "150")));
+		assertEquals(new BigDecimal("10.00"), fxRateService.toUsdNotional(deal("SEK", "100")));
+		assertEquals(new BigDecimal("25.50"), fxRateService.toUsdNotional(deal("USD", "25.5")));
+		assertNull(fxRateService.toUsdNotional(deal("GBP", "100")));
+	}
+
+	@Test
+	void rate_derivedRate_shouldBeCachedUntilRefresh() {
+		when(fxRateRepository.findAll()).thenReturn(List.of(rate("EUR", "USD", "1.10"), rate("EUR", "SEK", "11")));
+		FxRateSnapshot first = fxRateService.refresh();
+
+		assertSame(first.rate("SEK", "USD"), first.rate("SEK", "USD"));
+
+		FxRateSnapshot second = fxRateService.refresh();
+		assertNotSame(first, second);
+		assertSame(second, fxRateService.getSnapshot());
+	}
+
+	@Test
+	void refresh_fromFile_shouldNotQueryTheTable() throws IOException {
+		Path file = tempDir.resolve("rates.csv");
+		Files.writeString(file, "baseCurrency,quoteCurrency,rate\n# comment\nGBP,USD,1.25\n");
+		ReflectionTestUtils.setField(fxRateService, "ratesFile", file.toString());
+
+		fxRateService.refresh();
+
+		assertEquals(new BigDecimal("125.00"), fxRateService.toUsdNotional(deal("GBP", "100")));
+		verify(fxRateRepository, never()).findAll();
+	}
+
+	@Test
+	void refresh_failingSource_shouldKeepPreviousSnapshot() throws IOException {
+		when(fxRateRepository.findAll()).thenReturn(List.of(rate("EUR", "USD", "1.10")));
+		FxRateSnapshot loaded = fxRateService.refresh();
+
+		Path file = tempDir.resolve("rates.csv");
+		Files.writeString(file, "EUR,USD,1.10\nGBP,USD,not-a-rate\n");
+		ReflectionTestUtils.setField(fxRateService, "ratesFile", file.toString());
+
+		assertSame(loaded, fxRateService.refresh());
+	}
+
+	private static FxRate rate(String base, String quote, String value) {
+		FxRate rate = new FxRate();
+		rate.setBaseCurrency(base);
+		rate.setQuoteCurrency(quote);
+		rate.setRate(new BigDecimal(value));
+		return rate;
+	}
+
+	private static Deal deal(String fromCurrency, String amount) {
+		Currency currency = new Currency();
+		currency.setCurrencyCode(fromCurrency);
+		Deal deal = new Deal();
+		deal.setDealUniqueId("deal-" + fromCurrency);
+		deal.setFromCurrency(currency);
+		deal.setDealAmount(new BigDecimal(amount));
+		return deal;
+	}
+}
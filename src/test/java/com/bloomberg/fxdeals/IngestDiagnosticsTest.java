@@ -0,0 +1,66 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bloomberg.fxdeals.service.IngestDiagnostics;
+import com.bloomberg.fxdeals.service.IngestDiagnosticsService;
+import com.bloomberg.fxdeals.service.RejectionReason;
+
+class IngestDiagnosticsTest {
+
+	private IngestDiagnosticsService ingestDiagnosticsService;
+
+	@BeforeEach
+	void setUp() {
+		ingestDiagnosticsService = new IngestDiagnosticsService();
+		ReflectionTestUtils.setField(ingestDiagnosticsService, "exemplarsPerReason", 2);
+		ReflectionTestUtils.setField(ingestDiagnosticsService, "exemplarIntervalMs", 3_600_000L);
+	}
+
+	@Test
+	void reject_manyRejections_shouldCountAllButLogOnlyExemplarsPerReason() {
+		IngestDiagnostics diagnostics = ingestDiagnosticsService.start("test", false);
+
+		assertTrue(diagnostics.reject(RejectionReason.INVALID_AMOUNT, "deal1"));
+		assertTrue(diagnostics.reject(RejectionReason.INVALID_AMOUNT, "deal2"));
+		assertFalse(diagnostics.reject(RejectionReason.INVALID_AMOUNT, "deal3"));
+		assertFalse(diagnostics.reject(RejectionReason.INVALID_AMOUNT, "deal4", new IllegalStateException("boom")));
+		assertTrue(diagnostics.reject(RejectionReason.SAME_CURRENCY, "deal5"));
+
+		Map<RejectionReason, Long> counts = diagnostics.getRejectionCounts();
+		assertEquals(2, counts.size());
+		assertEquals(4L, counts.get(RejectionReason.INVALID_AMOUNT));
+		assertEquals(1L, counts.get(RejectionReason.SAME_CURRENCY));
+	}
+
+	@Test
+	void reject_debugImport_shouldLogEveryRejection() {
+		IngestDiagnostics diagnostics = ingestDiagnosticsService.start("test", true);
+
+		for (int i = 0; i < 5; i++) {
+			assertTrue(diagnostics.reject(RejectionReason.ALREADY_EXISTS, "deal" + i));
+		}
+		assertEquals(5L, diagnostics.getRejectionCounts().get(RejectionReason.ALREADY_EXISTS));
+	}
+
+	@Test
+	void start_shouldScopeCountersToOneImport() {
+		IngestDiagnostics first = ingestDiagnosticsService.start("test", false);
+		IngestDiagnostics second = ingestDiagnosticsService.start("test", false);
+
+		first.reject(RejectionReason.MALFORMED_RECORD, null);
+		first.finish(1, 0);
+
+		assertNotEquals(first.getImportId(), second.getImportId());
+		assertTrue(second.getRejectionCounts().isEmpty());
+	}
+}
@@ -0,0 +1,73 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bloomberg.fxdeals.service.MappedFileRegions;
+
+class MappedFileRegionsTest {
+
+	@TempDir
+	Path tempDir;
+
+	private List<String> readLines(Path file, long regionSize, List<Integer> linesPerRegion) throws IOException {
+		List<String> lines = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			for (ByteBuffer region : MappedFileRegions.map(channel, regionSize)) {
+				int before = lines.size();
+				MappedFileRegions.forEachLine(region, lines::add);
+				linesPerRegion.add(lines.size() - before);
+			}
+		}
+		return lines;
+	}
+
+	@Test
+	void map_smallRegions_shouldSplitOnLineBoundariesOnly() throws IOException {
+		String content = "deal1,USD,EUR,2024-08-20 12:30:00,1000.00\r\n" +
+				"deal2,GBP,USD,2024-08-20 13:30:00,1500.50\n" +
+				"\n" +
+				"deal3,AUD,CAD,2024-08-20 14:30:00,2000.75";
+		Path file = Files.write(tempDir.resolve("deals.csv"), content.getBytes(StandardCharsets.UTF_8));
+
+		List<Integer> linesPerRegion = new ArrayList<>();
+		List<String> lines = readLines(file, 50, linesPerRegion);
+
+		assertEquals(List.of("deal1,USD,EUR,2024-08-20 12:30:00,1000.00", "deal2,GBP,USD,2024-08-20 13:30:00,1500.50",
+				"deal3,AUD,CAD,2024-08-20 14:30:00,2000.75"), lines);
+		assertEquals(List.of(1, 1, 1), linesPerRegion);
+	}
+
+	@Test
+	void map_singleRegion_shouldReadWholeFile() throws IOException {
+		String content = "deal1,USD,EUR,2024-08-20 12:30:00,1000.00\ndeal2,GBP,USD,2024-08-20 13:30:00,1500.50\n";
+		Path file = Files.write(tempDir.resolve("deals.csv"), content.getBytes(StandardCharsets.UTF_8));
+
+		List<Integer> linesPerRegion = new ArrayList<>();
+		List<String> lines = readLines(file, 1 << 20, linesPerRegion);
+
+		assertEquals(2, lines.size());
+		assertEquals(List.of(2), linesPerRegion);
+	}
+
+	@Test
+	void map_lineLongerThanRegion_shouldThrow() throws IOException {
+		Path file = Files.write(tempDir.resolve("deals.csv"),
+				"deal1,USD,EUR,2024-08-20 12:30:00,1000.00\n".getBytes(StandardCharsets.UTF_8));
+
+		assertThrows(IOException.class, () -> readLines(file, 10, new ArrayList<>()));
+	}
+}
@@ -0,0 +1,127 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bloomberg.fxdeals.config.ReadWriteRoutingDataSource;
+
+class ReadWriteRoutingDataSourceTest {
+
+	private final Connection primaryConnection = mock(Connection.class);
+	private Connection replica1Connection;
+	private Connection replica2Connection;
+	private DataSource replica1;
+	private DataSource replica2;
+	private ReadWriteRoutingDataSource routingDataSource;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		DataSource primary = mock(DataSource.class);
+		when(primary.getConnection()).thenReturn(primaryConnection);
+		replica1Connection = replicaConnection(0);
+		replica2Connection = replicaConnection(0);
+		replica1 = dataSource(replica1Connection);
+		replica2 = dataSource(replica2Connection);
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", replica1);
+		replicas.put("replica-2", replica2);
+		routingDataSource = new ReadWriteRoutingDataSource(primary, replicas, 1000);
+		routingDataSource.afterPropertiesSet();
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	void getConnection_readWriteTransaction_shouldUsePrimary() throws SQLException {
+		routingDataSource.checkReplicas();
+
+		assertSame(primaryConnection, routingDataSource.getConnection());
+	}
+
+	@Test
+	void getConnection_readOnlyTransaction_shouldBalanceOverReplicas() throws SQLException {
+		routingDataSource.checkReplicas();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		Connection first = routingDataSource.getConnection();
+		Connection second = routingDataSource.getConnection();
+
+		assertEquals(Set.of(replica1Connection, replica2Connection), new HashSet<>(List.of(first, second)));
+	}
+
+	@Test
+	void getConnection_replicaBeforeFirstCheck_shouldUsePrimary() throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertSame(primaryConnection, routingDataSource.getConnection());
+	}
+
+	@Test
+	void getConnection_laggingOrUnreachableReplica_shouldBeSkipped() throws SQLException {
+		Connection lagging = replicaConnection(5000);
+		when(replica1.getConnection()).thenReturn(lagging);
+		when(replica2.getConnection()).thenThrow(new SQLException("connection refused"));
+		routingDataSource.checkReplicas();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertSame(primaryConnection, routingDataSource.getConnection());
+		assertEquals(5000, routingDataSource.getReplicationLagMs("replica-1"));
+		assertEquals(-1, routingDataSource.getReplicationLagMs("replica-2"));
+	}
+
+	@Test
+	void onPrimary_readOnlyTransaction_shouldUsePrimary() throws SQLException {
+		routingDataSource.checkReplicas();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		Connection connection = ReadWriteRoutingDataSource.onPrimary(() -> {
+			try {
+				return routingDataSource.getConnection();
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		assertSame(primaryConnection, connection);
+	}
+
+	private static Connection replicaConnection(double lagMs) throws SQLException {
+		Connection connection = mock(Connection.class);
+		Statement statement = mock(Statement.class);
+		ResultSet resultSet = mock(ResultSet.class);
+		when(connection.createStatement()).thenReturn(statement);
+		when(statement.executeQuery(anyString())).thenReturn(resultSet);
+		when(resultSet.next()).thenReturn(true);
+		when(resultSet.getDouble(1)).thenReturn(lagMs);
+		return connection;
+	}
+
+	private static DataSource dataSource(Connection connection) throws SQLException {
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		return dataSource;
+	}
+}
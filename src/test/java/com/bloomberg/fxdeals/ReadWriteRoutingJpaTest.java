@@ -0,0 +1,180 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bloomberg.fxdeals.config.DataSourceRoutingConfiguration;
+import com.bloomberg.fxdeals.config.ReadWriteRoutingDataSource;
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.repo.DealRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks the routing of Spring Data repositories under {@link JpaTransactionManager}, with mocked
+ * databases. Hibernate asks for its connection while the transaction begins, before Spring marks
+ * the transaction read-only, so the replica is only picked if the lazy connection proxy defers
+ * the physical connection to the first statement.
+ */
+@SpringJUnitConfig(ReadWriteRoutingJpaTest.Config.class)
+class ReadWriteRoutingJpaTest {
+
+	private static final Connection primaryConnection = connection();
+	private static final Connection replicaConnection = connection();
+	private static final DataSource primaryDatabase = database(primaryConnection);
+	private static final DataSource replicaDatabase = database(replicaConnection);
+
+	@Autowired
+	private ReadWriteRoutingDataSource routingDataSource;
+
+	@Autowired
+	private DealCounter dealCounter;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		routingDataSource.checkReplicas();
+		clearInvocations(primaryDatabase, replicaDatabase, primaryConnection, replicaConnection);
+		countQuery(primaryConnection, 3);
+		countQuery(replicaConnection, 2);
+	}
+
+	@Test
+	void readOnlyRepositoryCall_shouldRunOnReplica() throws SQLException {
+		assertEquals(2, dealCounter.countDeals());
+
+		verify(replicaConnection, atLeastOnce()).prepareStatement(anyString());
+		verify(primaryDatabase, never()).getConnection();
+	}
+
+	@Test
+	void writeTransactionRepositoryCall_shouldRunOnPrimary() throws SQLException {
+		assertEquals(3, dealCounter.countDealsForUpdate());
+
+		verify(primaryConnection, atLeastOnce()).prepareStatement(anyString());
+		verify(replicaDatabase, never()).getConnection();
+	}
+
+	@Configuration
+	@EnableTransactionManagement(proxyTargetClass = true)
+	@EnableJpaRepositories(basePackageClasses = DealRepository.class)
+	static class Config {
+
+		@Bean(destroyMethod = "close")
+		ReadWriteRoutingDataSource routingDataSource() {
+			return new ReadWriteRoutingDataSource(primaryDatabase, Map.of("replica-1", replicaDatabase), 1000);
+		}
+
+		@Bean
+		@Primary
+		DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+			return new DataSourceRoutingConfiguration().dataSource(routingDataSource);
+		}
+
+		@Bean
+		LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+			LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+			factory.setDataSource(dataSource);
+			factory.setPackagesToScan(Deal.class.getPackageName());
+			factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+			// No connection at bootstrap: the dialect is given instead of read from the database.
+			factory.setJpaPropertyMap(Map.of("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect",
+					"hibernate.boot.allow_jdbc_metadata_access", "false"));
+			return factory;
+		}
+
+		@Bean
+		PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+			return new JpaTransactionManager(entityManagerFactory);
+		}
+
+		@Bean
+		DealCounter dealCounter(DealRepository dealRepository) {
+			return new DealCounter(dealRepository);
+		}
+	}
+
+	static class DealCounter {
+
+		private final DealRepository dealRepository;
+
+		DealCounter(DealRepository dealRepository) {
+			this.dealRepository = dealRepository;
+		}
+
+		@Transactional(readOnly = true)
+		public long countDeals() {
+			return dealRepository.count();
+		}
+
+		@Transactional
+		public long countDealsForUpdate() {
+			return dealRepository.count();
+		}
+	}
+
+	private static void countQuery(Connection connection, long count) throws SQLException {
+		PreparedStatement statement = mock(PreparedStatement.class);
+		ResultSet resultSet = mock(ResultSet.class);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(statement.executeQuery()).thenReturn(resultSet);
+		when(resultSet.next()).thenReturn(true, false);
+		when(resultSet.getLong(1)).thenReturn(count);
+	}
+
+	private static Connection connection() {
+		try {
+			Connection connection = mock(Connection.class);
+			Statement statement = mock(Statement.class);
+			ResultSet lag = mock(ResultSet.class);
+			when(connection.getAutoCommit()).thenReturn(true);
+			when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+			when(connection.createStatement()).thenReturn(statement);
+			when(statement.executeQuery(anyString())).thenReturn(lag);
+			when(lag.next()).thenReturn(true);
+			when(lag.getDouble(1)).thenReturn(0.0);
+			return connection;
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static DataSource database(Connection connection) {
+		try {
+			DataSource dataSource = mock(DataSource.class);
+			when(dataSource.getConnection()).thenReturn(connection);
+			return dataSource;
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
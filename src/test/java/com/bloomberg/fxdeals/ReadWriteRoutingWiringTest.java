@@ -0,0 +1,173 @@
+package com.bloomberg.fxdeals;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bloomberg.fxdeals.config.DataSourceRoutingConfiguration;
+import com.bloomberg.fxdeals.config.ReadWriteRoutingDataSource;
+
+/**
+ * Checks the routing through Spring's transaction proxies and the lazy connection proxy of
+ * {@link DataSourceRoutingConfiguration}, with mocked databases.
+ */
+@SpringJUnitConfig(ReadWriteRoutingWiringTest.Config.class)
+class ReadWriteRoutingWiringTest {
+
+	private static final Connection primaryConnection = connection();
+	private static final Connection replicaConnection = connection();
+	private static final Statement primaryStatement = statement(primaryConnection);
+	private static final Statement replicaStatement = statement(replicaConnection);
+
+	@Autowired
+	private ReadWriteRoutingDataSource routingDataSource;
+
+	@Autowired
+	private DealFinder dealFinder;
+
+	@BeforeEach
+	void setUp() {
+		routingDataSource.checkReplicas();
+		clearInvocations(primaryConnection, replicaConnection, primaryStatement, replicaStatement);
+	}
+
+	@Test
+	void readOnlyFinder_shouldRunOnReplica() throws SQLException {
+		dealFinder.countDeals();
+
+		verify(replicaStatement).execute(DealFinder.COUNT);
+		verify(primaryConnection, never()).createStatement();
+	}
+
+	@Test
+	void writeTransaction_shouldRunOnPrimary() throws SQLException {
+		dealFinder.touchDeals();
+
+		verify(primaryStatement).execute(DealFinder.TOUCH);
+		verify(replicaConnection, never()).createStatement();
+	}
+
+	@Test
+	void readOnlyFinderOnPrimary_shouldRunOnPrimary() throws SQLException {
+		dealFinder.countDealsOnPrimary();
+
+		verify(primaryStatement).execute(DealFinder.COUNT);
+		verify(replicaConnection, never()).createStatement();
+	}
+
+	@Configuration
+	@EnableTransactionManagement(proxyTargetClass = true)
+	static class Config {
+
+		@Bean(destroyMethod = "close")
+		ReadWriteRoutingDataSource routingDataSource() {
+			return new ReadWriteRoutingDataSource(database(primaryConnection),
+					Map.of("replica-1", database(replicaConnection)), 1000);
+		}
+
+		@Bean
+		@Primary
+		DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+			return new DataSourceRoutingConfiguration().dataSource(routingDataSource);
+		}
+
+		@Bean
+		PlatformTransactionManager transactionManager(DataSource dataSource) {
+			return new DataSourceTransactionManager(dataSource);
+		}
+
+		@Bean
+		DealFinder dealFinder(DataSource dataSource) {
+			return new DealFinder(new JdbcTemplate(dataSource));
+		}
+	}
+
+	static class DealFinder {
+
+		static final String COUNT = "select count(*) from deal";
+		static final String TOUCH = "update deal set deal_id = deal_id where 1 = 0";
+
+		private final JdbcTemplate jdbcTemplate;
+
+		DealFinder(JdbcTemplate jdbcTemplate) {
+			this.jdbcTemplate = jdbcTemplate;
+		}
+
+		@Transactional(readOnly = true)
+		public void countDeals() {
+			jdbcTemplate.execute(COUNT);
+		}
+
+		@Transactional(readOnly = true)
+		public void countDealsOnPrimary() {
+			ReadWriteRoutingDataSource.onPrimary(() -> {
+				jdbcTemplate.execute(COUNT);
+				return null;
+			});
+		}
+
+		@Transactional
+		public void touchDeals() {
+			jdbcTemplate.execute(TOUCH);
+		}
+	}
+
+	private static Connection connection() {
+		try {
+			Connection connection = mock(Connection.class);
+			when(connection.getAutoCommit()).thenReturn(true);
+			when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+			return connection;
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Statement statement(Connection connection) {
+		try {
+			Statement statement = mock(Statement.class);
+			ResultSet resultSet = mock(ResultSet.class);
+			when(connection.createStatement()).thenReturn(statement);
+			when(statement.executeQuery(anyString())).thenReturn(resultSet);
+			when(resultSet.next()).thenReturn(true);
+			when(resultSet.getDouble(1)).thenReturn(0.0);
+			return statement;
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static DataSource database(Connection connection) {
+		try {
+			DataSource dataSource = mock(DataSource.class);
+			when(dataSource.getConnection()).thenReturn(connection);
+			return dataSource;
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
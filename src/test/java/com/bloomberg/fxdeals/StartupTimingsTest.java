@@ -0,0 +1,36 @@
+package com.bloomberg.fxdeals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bloomberg.fxdeals.entity.Deal;
+import com.bloomberg.fxdeals.event.DealsSavedEvent;
+import com.bloomberg.fxdeals.service.StartupTimings;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StartupTimingsTest {
+
+	@Test
+	void onDealsSaved_shouldRecordOnlyTheFirstDeal() throws Exception {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		StartupTimings startupTimings = new StartupTimings();
+		ReflectionTestUtils.setField(startupTimings, "meterRegistry", meterRegistry);
+		startupTimings.init();
+		assertEquals(-1, meterRegistry.get("fxdeals.startup.first.deal").gauge().value());
+
+		startupTimings.onDealsSaved(new DealsSavedEvent(List.of(new Deal())));
+		long firstDealMillis = startupTimings.getFirstDealMillis();
+		Thread.sleep(5);
+		startupTimings.onDealsSaved(new DealsSavedEvent(List.of(new Deal())));
+
+		assertTrue(firstDealMillis > 0);
+		assertEquals(firstDealMillis, startupTimings.getFirstDealMillis());
+		assertEquals(firstDealMillis, meterRegistry.get("fxdeals.startup.first.deal").gauge().value());
+	}
+}